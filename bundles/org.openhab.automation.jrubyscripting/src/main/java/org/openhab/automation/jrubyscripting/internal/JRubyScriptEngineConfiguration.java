@@ -48,6 +48,11 @@ public class JRubyScriptEngineConfiguration {
 
     private static final String GEM_HOME = "gem_home";
 
+    private static final String CHECK_UPDATE = "check_update";
+
+    // The gems and gem_home of the last successful gem installation
+    private @Nullable String installedGems;
+
     // Map of configuration parameters
     private static final Map<String, OptionalConfigurationElement> CONFIGURATION_PARAMETERS = Map.ofEntries(
             Map.entry("local_context",
@@ -58,6 +63,14 @@ public class JRubyScriptEngineConfiguration {
                     new OptionalConfigurationElement.Builder(OptionalConfigurationElement.Type.SYSTEM_PROPERTY)
                             .mappedTo("org.jruby.embed.localvariable.behavior").defaultValue("transient").build()),
 
+            Map.entry("jit_threshold",
+                    new OptionalConfigurationElement.Builder(OptionalConfigurationElement.Type.SYSTEM_PROPERTY)
+                            .mappedTo("jruby.jit.threshold").defaultValue("50").build()),
+
+            Map.entry("compile_mode",
+                    new OptionalConfigurationElement.Builder(OptionalConfigurationElement.Type.SYSTEM_PROPERTY)
+                            .mappedTo("jruby.compile.mode").defaultValue("JIT").build()),
+
             Map.entry(GEM_HOME,
                     new OptionalConfigurationElement.Builder(OptionalConfigurationElement.Type.RUBY_ENVIRONMENT)
                             .mappedTo("GEM_HOME").defaultValue(DEFAULT_GEM_HOME.toString()).build()),
@@ -66,7 +79,10 @@ public class JRubyScriptEngineConfiguration {
                     new OptionalConfigurationElement.Builder(OptionalConfigurationElement.Type.RUBY_ENVIRONMENT)
                             .mappedTo("RUBYLIB").defaultValue(DEFAULT_RUBYLIB.toString()).build()),
 
-            Map.entry("gems", new OptionalConfigurationElement.Builder(OptionalConfigurationElement.Type.GEM).build()));
+            Map.entry("gems", new OptionalConfigurationElement.Builder(OptionalConfigurationElement.Type.GEM).build()),
+
+            Map.entry(CHECK_UPDATE, new OptionalConfigurationElement.Builder(OptionalConfigurationElement.Type.OTHER)
+                    .defaultValue("true").build()));
 
     private static final Map<OptionalConfigurationElement.Type, List<OptionalConfigurationElement>> CONFIGURATION_TYPE_MAP = CONFIGURATION_PARAMETERS
             .values().stream().collect(Collectors.groupingBy(v -> v.type));
@@ -139,6 +155,10 @@ public class JRubyScriptEngineConfiguration {
 
     /**
      * Install a gems in ScriptEngine
+     *
+     * Gems are only installed if the list of gems or gem_home has changed since the last successful installation. If
+     * check_update is disabled, a gem is only installed if no installed version satisfies the requested version,
+     * otherwise the newest matching version is installed.
      * 
      * @param gemsDirectives List of gems to install
      * @param engine Engine to install gems
@@ -146,35 +166,69 @@ public class JRubyScriptEngineConfiguration {
     private synchronized void configureGems(List<OptionalConfigurationElement> gemDirectives, ScriptEngine engine) {
         for (OptionalConfigurationElement gemDirective : gemDirectives) {
             if (gemDirective.getValue().isPresent()) {
+                boolean checkUpdate = isCheckUpdate();
+                String gemsKey = gemDirective.getValue().get() + "@" + getGemHome().orElse("") + "#" + checkUpdate;
+                if (gemsKey.equals(installedGems)) {
+                    logger.debug("Ruby gems are unchanged, not installing them again");
+                    continue;
+                }
+
                 ensureGemHomeExists();
 
+                boolean success = true;
                 String[] gems = gemDirective.getValue().get().split(",");
                 for (String gem : gems) {
                     gem = gem.trim();
                     String gemCommand;
+                    String gemQuery;
                     if (gem.contains("=")) {
                         String[] gemParts = gem.split("=");
                         gem = gemParts[0];
                         String version = gemParts[1];
                         gemCommand = "Gem.install('" + gem + "',version='" + version + "')\n";
+                        gemQuery = "Gem::Specification.find_all_by_name('" + gem + "','" + version + "').empty?";
                     } else {
                         gemCommand = "Gem.install('" + gem + "')\n";
+                        gemQuery = "Gem::Specification.find_all_by_name('" + gem + "').empty?";
                     }
 
                     try {
+                        if (!checkUpdate && Boolean.FALSE.equals(engine.eval(gemQuery))) {
+                            logger.debug("Gem already installed: {} ", gem);
+                            continue;
+                        }
                         logger.debug("Installing Gem: {} ", gem);
                         logger.trace("Gem install code:\n{}\n", gemCommand);
                         engine.eval(gemCommand);
                     } catch (Exception e) {
                         logger.error("Error installing Gem", e);
+                        success = false;
                     }
                 }
+                installedGems = success ? gemsKey : null;
             } else {
                 logger.debug("Ruby gem property has no value");
             }
         }
     }
 
+    /**
+     * Returns whether gems are updated to the newest matching version
+     */
+    private boolean isCheckUpdate() {
+        OptionalConfigurationElement checkUpdateConfigElement = CONFIGURATION_PARAMETERS.get(CHECK_UPDATE);
+        return checkUpdateConfigElement == null
+                || !"false".equalsIgnoreCase(checkUpdateConfigElement.getValue().orElse("true"));
+    }
+
+    /**
+     * Returns the configured gem_home
+     */
+    private Optional<String> getGemHome() {
+        OptionalConfigurationElement gemHomeConfigElement = CONFIGURATION_PARAMETERS.get(GEM_HOME);
+        return gemHomeConfigElement != null ? gemHomeConfigElement.getValue() : Optional.empty();
+    }
+
     /**
      * Configure the base Ruby Environment
      * 
@@ -261,7 +315,8 @@ public class JRubyScriptEngineConfiguration {
         private enum Type {
             SYSTEM_PROPERTY,
             RUBY_ENVIRONMENT,
-            GEM
+            GEM,
+            OTHER
         }
 
         private static class Builder {
@@ -12,6 +12,7 @@
  */
 package org.openhab.automation.jsscripting.internal;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -19,17 +20,27 @@ import java.util.Map;
 
 import javax.script.ScriptEngine;
 
+import org.eclipse.jdt.annotation.Nullable;
+import org.graalvm.polyglot.Engine;
 import org.openhab.core.automation.module.script.ScriptEngineFactory;
 import org.openhab.core.config.core.ConfigurableService;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * An implementation of {@link ScriptEngineFactory} with customizations for GraalJS ScriptEngines.
  *
+ * All script engines use the same polyglot {@link Engine}, so sources and their parsed and compiled code are shared
+ * between the contexts of all scripts instead of being built again for every script file and UI script action.
+ *
+ * If a context pool size is configured, script engines are created in advance by a {@link ScriptEnginePool}.
+ *
  * @author Jonathan Gilbert - Initial contribution
  * @author Dan Cunningham - Script injections
  */
@@ -38,8 +49,15 @@ import org.osgi.service.component.annotations.Modified;
 @ConfigurableService(category = "automation", label = "JS Scripting", description_uri = "automation:jsscripting")
 public final class GraalJSScriptEngineFactory implements ScriptEngineFactory {
     private static final String CFG_INJECTION_ENABLED = "injectionEnabled";
+    private static final String CFG_CONTEXT_POOL_SIZE = "contextPoolSize";
+    private static final String CFG_CONTEXT_POOL_IDLE_TIMEOUT = "contextPoolIdleTimeout";
+    private static final int DEFAULT_CONTEXT_POOL_IDLE_TIMEOUT = 10;
     private static final String INJECTION_CODE = "Object.assign(this, require('openhab'));";
+    private final Logger logger = LoggerFactory.getLogger(GraalJSScriptEngineFactory.class);
     private boolean injectionEnabled = true;
+    private volatile @Nullable ScriptEnginePool pool;
+    private final Engine engine = Engine.newBuilder().allowExperimentalOptions(true)
+            .option("engine.WarnInterpreterOnly", "false").build();
 
     public static final String MIME_TYPE = "application/javascript;version=ECMAScript-2021";
 
@@ -70,8 +88,12 @@ public final class GraalJSScriptEngineFactory implements ScriptEngineFactory {
 
     @Override
     public ScriptEngine createScriptEngine(String scriptType) {
-        return new DebuggingGraalScriptEngine<>(
-                new OpenhabGraalJSScriptEngine(injectionEnabled ? INJECTION_CODE : null));
+        ScriptEnginePool pool = this.pool;
+        return new DebuggingGraalScriptEngine<>(pool != null ? pool.take() : newScriptEngine());
+    }
+
+    private OpenhabGraalJSScriptEngine newScriptEngine() {
+        return new OpenhabGraalJSScriptEngine(injectionEnabled ? INJECTION_CODE : null, engine);
     }
 
     @Activate
@@ -83,5 +105,44 @@ public final class GraalJSScriptEngineFactory implements ScriptEngineFactory {
     protected void modified(Map<String, ?> config) {
         Object injectionEnabled = config.get(CFG_INJECTION_ENABLED);
         this.injectionEnabled = injectionEnabled == null || (Boolean) injectionEnabled;
+
+        // pooled engines have been created with the previous configuration
+        closePool();
+        int poolSize = getIntValue(config, CFG_CONTEXT_POOL_SIZE, 0);
+        if (poolSize > 0) {
+            int idleTimeout = getIntValue(config, CFG_CONTEXT_POOL_IDLE_TIMEOUT, DEFAULT_CONTEXT_POOL_IDLE_TIMEOUT);
+            pool = new ScriptEnginePool(this::newScriptEngine, poolSize, Duration.ofMinutes(Math.max(1, idleTimeout)));
+        }
+    }
+
+    private static int getIntValue(Map<String, ?> config, String key, int defaultValue) {
+        Object value = config.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return value instanceof Number ? ((Number) value).intValue() : Integer.parseInt(value.toString());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private void closePool() {
+        ScriptEnginePool pool = this.pool;
+        if (pool != null) {
+            this.pool = null;
+            pool.shutdown();
+        }
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        closePool();
+        try {
+            // contexts which are still open and not executing are closed as well
+            engine.close();
+        } catch (IllegalStateException e) {
+            logger.warn("Could not close the GraalJS engine, scripts are still executing: {}", e.getMessage());
+        }
     }
 }
@@ -78,8 +78,12 @@ public class OpenhabGraalJSScriptEngine
     /**
      * Creates an implementation of ScriptEngine (& Invocable), wrapping the contained engine, that tracks the script
      * lifecycle and provides hooks for scripts to do so too.
+     *
+     * @param injectionCode code evaluated in addition to the global script, or null
+     * @param engine the polyglot engine shared by all script engines, so parsed and compiled code, e.g. of the
+     *            openhab library, is reused by their contexts
      */
-    public OpenhabGraalJSScriptEngine(@Nullable String injectionCode) {
+    public OpenhabGraalJSScriptEngine(@Nullable String injectionCode, Engine engine) {
         super(null); // delegate depends on fields not yet initialised, so we cannot set it immediately
         this.globalScript = GLOBAL_REQUIRE + (injectionCode != null ? injectionCode : "");
 
@@ -99,9 +103,7 @@ public class OpenhabGraalJSScriptEngine
                         }, HostAccess.TargetMappingPrecedence.LOW)
                 .build();
 
-        delegate = GraalJSScriptEngine.create(
-                Engine.newBuilder().allowExperimentalOptions(true).option("engine.WarnInterpreterOnly", "false")
-                        .build(),
+        delegate = GraalJSScriptEngine.create(engine,
                 Context.newBuilder("js").allowExperimentalOptions(true).allowAllAccess(true).allowHostAccess(hostAccess)
                         .option("js.commonjs-require-cwd", JSDependencyTracker.LIB_PATH)
                         .option("js.nashorn-compat", "true") // to ease migration
@@ -166,6 +168,14 @@ public class OpenhabGraalJSScriptEngine
                         }));
     }
 
+    /**
+     * Creates the polyglot context of the wrapped engine, which is otherwise created when the engine is first used.
+     * The global script is still evaluated on first use, because it needs the attributes of the script context.
+     */
+    public void createPolyglotContext() {
+        delegate.getPolyglotContext();
+    }
+
     @Override
     protected void beforeInvocation() {
         if (initialized) {
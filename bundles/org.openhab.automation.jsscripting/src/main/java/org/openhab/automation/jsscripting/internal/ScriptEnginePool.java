@@ -0,0 +1,202 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.automation.jsscripting.internal;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.core.common.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps script engines created in advance, so creating a script engine and its polyglot context does not delay loading
+ * a rule. The openHAB library is still injected when a script is first evaluated, as it needs the script context.
+ *
+ * A pooled engine is handed out only once. GraalJS contexts cannot be reset, so an engine used by one script is never
+ * given to another one. The pool is refilled in the background after an engine has been taken. Engines which have not
+ * been taken within the idle timeout are closed, so an idle system does not keep unused contexts.
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class ScriptEnginePool {
+    private final Logger logger = LoggerFactory.getLogger(ScriptEnginePool.class);
+
+    private final Supplier<OpenhabGraalJSScriptEngine> engineSupplier;
+    private final int size;
+    private final long idleTimeout;
+
+    private final ConcurrentLinkedDeque<PooledEngine> idleEngines = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicBoolean refillScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService executor = Executors
+            .newSingleThreadScheduledExecutor(new NamedThreadFactory("jsscripting-pool"));
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong warmUpNanos = new AtomicLong();
+
+    private static class PooledEngine {
+        private final OpenhabGraalJSScriptEngine engine;
+        private final long created = System.currentTimeMillis();
+
+        private PooledEngine(OpenhabGraalJSScriptEngine engine) {
+            this.engine = engine;
+        }
+    }
+
+    /**
+     * Creates a pool and starts filling it
+     *
+     * @param engineSupplier creates new script engines
+     * @param size the number of engines to keep
+     * @param idleTimeout the time after which an engine which has not been taken is closed
+     */
+    public ScriptEnginePool(Supplier<OpenhabGraalJSScriptEngine> engineSupplier, int size, Duration idleTimeout) {
+        this.engineSupplier = engineSupplier;
+        this.size = size;
+        this.idleTimeout = idleTimeout.toMillis();
+        long evictionInterval = Math.max(1000, this.idleTimeout / 2);
+        executor.scheduleWithFixedDelay(this::evictIdleEngines, evictionInterval, evictionInterval,
+                TimeUnit.MILLISECONDS);
+        scheduleRefill();
+    }
+
+    /**
+     * Returns a pooled engine, or a new one if the pool is empty
+     */
+    public OpenhabGraalJSScriptEngine take() {
+        PooledEngine pooled = idleEngines.pollFirst();
+        if (pooled != null) {
+            idleCount.decrementAndGet();
+            hits.incrementAndGet();
+            scheduleRefill();
+            return pooled.engine;
+        }
+        misses.incrementAndGet();
+        scheduleRefill();
+        return createEngine(false);
+    }
+
+    /**
+     * Closes all pooled engines and stops refilling the pool
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        PooledEngine pooled;
+        while ((pooled = idleEngines.pollFirst()) != null) {
+            idleCount.decrementAndGet();
+            close(pooled);
+        }
+        logger.debug("Script engine pool closed: {}", this);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int getIdleCount() {
+        return idleCount.get();
+    }
+
+    /**
+     * Returns the average time in milliseconds it took to create a pooled engine and its polyglot context
+     */
+    public double getAverageWarmUpTime() {
+        long count = created.get();
+        return count == 0 ? 0 : warmUpNanos.get() / 1_000_000.0 / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d idle engines, %d hits, %d misses, average warm-up %.1f ms", idleCount.get(),
+                getHits(), getMisses(), getAverageWarmUpTime());
+    }
+
+    private OpenhabGraalJSScriptEngine createEngine(boolean createContext) {
+        long start = System.nanoTime();
+        OpenhabGraalJSScriptEngine engine = engineSupplier.get();
+        if (createContext) {
+            // GraalJS creates the context lazily, on first use of the engine
+            engine.createPolyglotContext();
+            warmUpNanos.addAndGet(System.nanoTime() - start);
+            created.incrementAndGet();
+        }
+        return engine;
+    }
+
+    private void scheduleRefill() {
+        if (refillScheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::refill);
+            } catch (RuntimeException e) {
+                // the pool has been shut down
+                refillScheduled.set(false);
+            }
+        }
+    }
+
+    private void refill() {
+        refillScheduled.set(false);
+        try {
+            while (idleCount.get() < size && !executor.isShutdown()) {
+                PooledEngine pooled = new PooledEngine(createEngine(true));
+                idleEngines.addLast(pooled);
+                idleCount.incrementAndGet();
+                // the pool may have been shut down while the engine was created, after it has closed the idle engines
+                if (executor.isShutdown() && idleEngines.removeFirstOccurrence(pooled)) {
+                    idleCount.decrementAndGet();
+                    close(pooled);
+                }
+            }
+            logger.debug("Script engine pool refilled: {}", this);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to create a script engine for the pool: {}", e.getMessage());
+        }
+    }
+
+    private void evictIdleEngines() {
+        long expired = System.currentTimeMillis() - idleTimeout;
+        Iterator<PooledEngine> iterator = idleEngines.iterator();
+        while (iterator.hasNext()) {
+            PooledEngine pooled = iterator.next();
+            if (pooled.created < expired && idleEngines.removeFirstOccurrence(pooled)) {
+                idleCount.decrementAndGet();
+                close(pooled);
+            }
+        }
+    }
+
+    private void close(PooledEngine pooled) {
+        try {
+            pooled.engine.close();
+        } catch (Exception e) {
+            logger.debug("Failed to close pooled script engine: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.automation.jsscripting.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link ScriptEnginePool}.
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class ScriptEnginePoolTest {
+
+    private final List<OpenhabGraalJSScriptEngine> engines = new CopyOnWriteArrayList<>();
+    private @Nullable ScriptEnginePool pool;
+
+    private OpenhabGraalJSScriptEngine newEngine() {
+        OpenhabGraalJSScriptEngine engine = mock(OpenhabGraalJSScriptEngine.class);
+        engines.add(engine);
+        return engine;
+    }
+
+    private ScriptEnginePool createPool(int size, Duration idleTimeout) {
+        ScriptEnginePool pool = new ScriptEnginePool(this::newEngine, size, idleTimeout);
+        this.pool = pool;
+        return pool;
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < timeout, "condition not met within 5 seconds");
+            Thread.sleep(10);
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ScriptEnginePool pool = this.pool;
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void takeReturnsPooledEngineWithContextAndRefills() throws InterruptedException {
+        ScriptEnginePool pool = createPool(2, Duration.ofMinutes(10));
+        waitFor(() -> pool.getIdleCount() == 2);
+
+        OpenhabGraalJSScriptEngine engine = pool.take();
+        assertSame(engines.get(0), engine);
+        verify(engine).createPolyglotContext();
+        assertEquals(1, pool.getHits());
+        assertEquals(0, pool.getMisses());
+
+        waitFor(() -> pool.getIdleCount() == 2);
+        assertEquals(3, engines.size());
+    }
+
+    @Test
+    public void takeCreatesEngineIfPoolIsEmpty() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        Thread testThread = Thread.currentThread();
+        // the refill of the pool cannot complete before the engine has been taken
+        ScriptEnginePool pool = new ScriptEnginePool(() -> {
+            if (Thread.currentThread() != testThread) {
+                awaitUninterruptibly(release);
+            }
+            return newEngine();
+        }, 1, Duration.ofMinutes(10));
+        this.pool = pool;
+
+        OpenhabGraalJSScriptEngine engine = pool.take();
+        assertEquals(1, pool.getMisses());
+        assertEquals(0, pool.getHits());
+        // the script creates the context of a new engine on first use
+        verify(engine, never()).createPolyglotContext();
+        release.countDown();
+    }
+
+    @Test
+    public void idleEnginesAreEvicted() throws Exception {
+        ScriptEnginePool pool = createPool(1, Duration.ofMillis(1));
+        waitFor(() -> engines.size() == 1);
+        OpenhabGraalJSScriptEngine engine = engines.get(0);
+
+        waitFor(() -> pool.getIdleCount() == 0);
+        verify(engine).close();
+    }
+
+    @Test
+    public void shutdownClosesIdleEngines() throws Exception {
+        ScriptEnginePool pool = createPool(2, Duration.ofMinutes(10));
+        waitFor(() -> pool.getIdleCount() == 2);
+
+        pool.shutdown();
+        assertEquals(0, pool.getIdleCount());
+        for (OpenhabGraalJSScriptEngine engine : engines) {
+            verify(engine).close();
+        }
+
+        // engines taken after shutdown are created on demand and the pool is not refilled
+        pool.take();
+        Thread.sleep(100);
+        assertEquals(3, engines.size());
+        assertEquals(0, pool.getIdleCount());
+    }
+
+    @Test
+    public void engineCreatedDuringShutdownIsClosed() throws Exception {
+        CountDownLatch creating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ScriptEnginePool pool = new ScriptEnginePool(() -> {
+            creating.countDown();
+            awaitUninterruptibly(release);
+            return newEngine();
+        }, 1, Duration.ofMinutes(10));
+        this.pool = pool;
+        assertTrue(creating.await(5, TimeUnit.SECONDS));
+
+        pool.shutdown();
+        release.countDown();
+
+        waitFor(() -> engines.size() == 1);
+        OpenhabGraalJSScriptEngine engine = engines.get(0);
+        verify(engine, timeout(5000)).close();
+        assertEquals(0, pool.getIdleCount());
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await(5, TimeUnit.SECONDS);
+                break;
+            } catch (InterruptedException e) {
+                // the pool interrupts its thread on shutdown
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -25,12 +25,14 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.jetty.client.api.Authentication;
 import org.eclipse.jetty.client.api.AuthenticationStore;
+import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpMethod;
 import org.openhab.binding.http.internal.Util;
 import org.openhab.binding.http.internal.config.HttpThingConfig;
@@ -41,10 +43,15 @@ import org.slf4j.LoggerFactory;
  * The {@link RefreshingUrlCache} is responsible for requesting from a single URL and passing the content to the
  * channels
  *
+ * GET requests are sent as conditional requests with the validators of the last response, a "304 Not Modified" response
+ * is handled like a response with unchanged content. If configured, unchanged content is not passed to the channels.
+ *
  * @author Jan N. Klug - Initial contribution
  */
 @NonNullByDefault
 public class RefreshingUrlCache {
+    private static final long STATISTICS_LOG_INTERVAL = TimeUnit.HOURS.toMillis(1);
+
     private final Logger logger = LoggerFactory.getLogger(RefreshingUrlCache.class);
 
     private final String url;
@@ -56,10 +63,16 @@ public class RefreshingUrlCache {
     private final List<String> headers;
     private final HttpMethod httpMethod;
     private final String httpContent;
+    private final boolean skipUnchanged;
 
     private final ScheduledFuture<?> future;
     private @Nullable Content lastContent;
 
+    private final AtomicLong responses = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private volatile long lastStatisticsLog = System.currentTimeMillis();
+
     public RefreshingUrlCache(ScheduledExecutorService executor, RateLimitedHttpClient httpClient, String url,
             HttpThingConfig thingConfig, String httpContent) {
         this.httpClient = httpClient;
@@ -69,6 +82,7 @@ public class RefreshingUrlCache {
         this.headers = thingConfig.headers;
         this.httpMethod = thingConfig.stateMethod;
         this.httpContent = httpContent;
+        this.skipUnchanged = thingConfig.skipUnchanged;
         fallbackEncoding = thingConfig.encoding;
 
         future = executor.scheduleWithFixedDelay(this::refresh, 1, thingConfig.refresh, TimeUnit.SECONDS);
@@ -102,9 +116,24 @@ public class RefreshingUrlCache {
                     }
                 });
 
+                Content previousContent = lastContent;
+                if (previousContent != null && httpMethod == HttpMethod.GET) {
+                    String eTag = previousContent.getETag();
+                    if (eTag != null) {
+                        request.header(HttpHeader.IF_NONE_MATCH, eTag);
+                    }
+                    String lastModified = previousContent.getLastModified();
+                    if (lastModified != null) {
+                        request.header(HttpHeader.IF_MODIFIED_SINCE, lastModified);
+                    }
+                }
+
                 CompletableFuture<@Nullable Content> response = new CompletableFuture<>();
                 response.exceptionally(e -> {
-                    if (e instanceof HttpAuthException) {
+                    if (e instanceof HttpNotModifiedException) {
+                        notModified.incrementAndGet();
+                        return previousContent;
+                    } else if (e instanceof HttpAuthException) {
                         if (isRetry) {
                             logger.warn("Retry after authentication failure failed again for '{}', failing here", uri);
                         } else {
@@ -145,6 +174,7 @@ public class RefreshingUrlCache {
         consumers.clear();
         future.cancel(false);
         logger.trace("Stopped refresh task for URL '{}'", url);
+        logger.debug("Statistics for URL '{}': {}", url, getStatistics());
     }
 
     public void addConsumer(Consumer<Content> consumer) {
@@ -160,8 +190,44 @@ public class RefreshingUrlCache {
         }
     }
 
+    /**
+     * Returns the share of responses with unchanged content, between 0 and 1
+     */
+    public double getUnchangedRatio() {
+        long responses = this.responses.get();
+        return responses == 0 ? 0 : (double) unchanged.get() / responses;
+    }
+
+    private void logStatisticsPeriodically() {
+        long now = System.currentTimeMillis();
+        if (logger.isDebugEnabled() && now - lastStatisticsLog >= STATISTICS_LOG_INTERVAL) {
+            lastStatisticsLog = now;
+            logger.debug("Statistics for URL '{}': {}", url, getStatistics());
+        }
+    }
+
+    private String getStatistics() {
+        return String.format("%d responses, %d unchanged (%d not modified), %s %.1f%%", responses.get(),
+                unchanged.get(), notModified.get(), skipUnchanged ? "skipped" : "unchanged",
+                getUnchangedRatio() * 100);
+    }
+
     private void processResult(@Nullable Content content) {
         if (content != null) {
+            responses.incrementAndGet();
+            logStatisticsPeriodically();
+            Content previousContent = lastContent;
+            if (previousContent != null && (content == previousContent || content.isSameAs(previousContent))) {
+                unchanged.incrementAndGet();
+                if (skipUnchanged) {
+                    // keep the validators of the latest response
+                    lastContent = content;
+                    if (logger.isTraceEnabled()) {
+                        logger.trace("Content of URL {} unchanged, not updating channels: {}", url, getStatistics());
+                    }
+                    return;
+                }
+            }
             for (Consumer<Content> consumer : consumers) {
                 try {
                     consumer.accept(content);
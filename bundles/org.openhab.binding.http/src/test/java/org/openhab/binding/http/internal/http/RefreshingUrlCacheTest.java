@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.http.internal.http;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.openhab.binding.http.internal.config.HttpThingConfig;
+
+/**
+ * The {@link RefreshingUrlCacheTest} is a test class for the handling of unchanged content
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class RefreshingUrlCacheTest {
+    private static final String URL = "http://localhost/state";
+
+    private final ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+    private final RateLimitedHttpClient httpClient = mock(RateLimitedHttpClient.class);
+    private final Request request = mock(Request.class, RETURNS_SELF);
+    private final HttpThingConfig thingConfig = new HttpThingConfig();
+    private final List<Content> received = new ArrayList<>();
+
+    private int status = HttpStatus.OK_200;
+    private String body = "";
+    private final HttpFields responseHeaders = new HttpFields();
+
+    @BeforeEach
+    public void setUp() {
+        doReturn(mock(ScheduledFuture.class)).when(executor).scheduleWithFixedDelay(any(), anyLong(), anyLong(), any());
+        when(httpClient.newRequest(any(), any(), any())).thenReturn(CompletableFuture.completedFuture(request));
+        doAnswer(invocation -> {
+            respond(invocation.getArgument(0));
+            return null;
+        }).when(request).send(any(Response.CompleteListener.class));
+    }
+
+    private void respond(HttpResponseListener listener) {
+        when(request.getURI()).thenReturn(URI.create(URL));
+        when(request.getMethod()).thenReturn("GET");
+        Response response = mock(Response.class);
+        when(response.getRequest()).thenReturn(request);
+        when(response.getStatus()).thenReturn(status);
+        when(response.getHeaders()).thenReturn(responseHeaders);
+        Result result = mock(Result.class);
+        when(result.getResponse()).thenReturn(response);
+        when(result.getRequest()).thenReturn(request);
+
+        listener.onHeaders(response);
+        if (status == HttpStatus.OK_200) {
+            listener.onContent(response, ByteBuffer.wrap(body.getBytes(StandardCharsets.UTF_8)));
+        }
+        listener.onComplete(result);
+    }
+
+    private RefreshingUrlCache createCache() {
+        RefreshingUrlCache cache = new RefreshingUrlCache(executor, httpClient, URL, thingConfig, "");
+        cache.addConsumer(received::add);
+        return cache;
+    }
+
+    private void refresh() {
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor, atLeastOnce()).scheduleWithFixedDelay(task.capture(), anyLong(), anyLong(), any());
+        task.getValue().run();
+    }
+
+    @Test
+    public void notModifiedResponseRedeliversPreviousContent() {
+        responseHeaders.put(HttpHeader.ETAG, "\"v1\"");
+        createCache();
+
+        body = "content";
+        refresh();
+        Assertions.assertEquals(1, received.size());
+        Assertions.assertEquals("content", new String(received.get(0).getRawContent(), StandardCharsets.UTF_8));
+
+        status = HttpStatus.NOT_MODIFIED_304;
+        refresh();
+        verify(request).header(HttpHeader.IF_NONE_MATCH, "\"v1\"");
+        Assertions.assertEquals(2, received.size());
+        Assertions.assertSame(received.get(0), received.get(1));
+    }
+
+    @Test
+    public void identicalContentIsPassedOnWithoutSkipUnchanged() {
+        createCache();
+
+        body = "content";
+        refresh();
+        refresh();
+        Assertions.assertEquals(2, received.size());
+    }
+
+    @Test
+    public void identicalContentIsSkippedWithSkipUnchanged() {
+        thingConfig.skipUnchanged = true;
+        RefreshingUrlCache cache = createCache();
+
+        body = "content";
+        refresh();
+        refresh();
+        Assertions.assertEquals(1, received.size());
+        Assertions.assertEquals(0.5, cache.getUnchangedRatio());
+
+        body = "changed";
+        refresh();
+        Assertions.assertEquals(2, received.size());
+        Assertions.assertEquals("changed", new String(received.get(1).getRawContent(), StandardCharsets.UTF_8));
+    }
+}
@@ -14,8 +14,12 @@ package org.openhab.binding.mqtt.generic;
 
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.IllegalFormatException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -25,8 +29,17 @@ import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.binding.mqtt.generic.values.TextValue;
 import org.openhab.binding.mqtt.generic.values.Value;
+import org.openhab.binding.mqtt.handler.MqttInboundDispatcher;
 import org.openhab.core.io.transport.mqtt.MqttBrokerConnection;
 import org.openhab.core.io.transport.mqtt.MqttMessageSubscriber;
+import org.openhab.core.library.types.DateTimeType;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.HSBType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.OpenClosedType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.PointType;
+import org.openhab.core.library.types.QuantityType;
 import org.openhab.core.library.types.StringType;
 import org.openhab.core.thing.ChannelUID;
 import org.openhab.core.types.Command;
@@ -42,6 +55,15 @@ import org.slf4j.LoggerFactory;
  */
 @NonNullByDefault
 public class ChannelState implements MqttMessageSubscriber {
+    private static final int PARSED_COMMANDS_CACHE_SIZE = 16;
+    /**
+     * Commands which set the value to the same state, no matter how often they are applied. Unlike e.g. INCREASE,
+     * receiving them again does not need to update the value again.
+     */
+    private static final Set<Class<? extends Command>> ABSOLUTE_COMMAND_TYPES = Set.of(DecimalType.class,
+            QuantityType.class, StringType.class, OnOffType.class, OpenClosedType.class, PercentType.class,
+            HSBType.class, PointType.class, DateTimeType.class);
+
     private final Logger logger = LoggerFactory.getLogger(ChannelState.class);
 
     // Immutable channel configuration
@@ -54,6 +76,7 @@ public class ChannelState implements MqttMessageSubscriber {
 
     // Runtime variables
     private @Nullable MqttBrokerConnection connection;
+    private MqttMessageSubscriber subscriber = this;
     protected final List<ChannelStateTransformation> transformationsIn = new ArrayList<>();
     protected final List<ChannelStateTransformation> transformationsOut = new ArrayList<>();
     private @Nullable ChannelStateUpdateListener channelStateUpdateListener;
@@ -62,6 +85,19 @@ public class ChannelState implements MqttMessageSubscriber {
     private CompletableFuture<@Nullable Void> future = CompletableFuture.completedFuture(null);
     private final Object futureLock = new Object();
 
+    // Last message which has set the value to an absolute state, identical messages only repeat that state
+    private volatile byte @Nullable [] lastPayload;
+    private volatile @Nullable String lastValue;
+    // Payloads of a channel are mostly from a small set of values, remember what they are parsed to
+    private final Map<String, Command> parsedCommands = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.@Nullable Entry<String, Command> eldest) {
+            return size() > PARSED_COMMANDS_CACHE_SIZE;
+        }
+    };
+
     /**
      * Creates a new channel state.
      *
@@ -152,6 +188,14 @@ public class ChannelState implements MqttMessageSubscriber {
             return;
         }
 
+        // Triggers and commands are posted for every message, state updates can be repeated
+        final boolean repeatable = !config.trigger && !config.postCommand;
+        // Transformations may return a different value for the same payload, their result is compared below
+        if (repeatable && transformationsIn.isEmpty() && Arrays.equals(payload, lastPayload)) {
+            repeatLastState(channelStateUpdateListener);
+            return;
+        }
+
         // String value: Apply transformations
         String strValue = new String(payload, StandardCharsets.UTF_8);
         for (ChannelStateTransformation t : transformationsIn) {
@@ -172,7 +216,15 @@ public class ChannelState implements MqttMessageSubscriber {
             return;
         }
 
-        Command command = TypeParser.parseCommand(cachedValue.getSupportedCommandTypes(), strValue);
+        // e.g. a JSONPATH transformation selecting a value which has not changed in a larger message
+        if (repeatable && strValue.equals(lastValue)) {
+            lastPayload = payload;
+            repeatLastState(channelStateUpdateListener);
+            return;
+        }
+        resetLastMessage();
+
+        Command command = parseCommand(strValue);
         if (command == null) {
             logger.warn("Incoming payload '{}' not supported by type '{}'", strValue,
                     cachedValue.getClass().getSimpleName());
@@ -197,6 +249,11 @@ public class ChannelState implements MqttMessageSubscriber {
             return;
         }
 
+        if (repeatable && ABSOLUTE_COMMAND_TYPES.contains(command.getClass())) {
+            lastPayload = payload;
+            lastValue = strValue;
+        }
+
         if (config.postCommand) {
             channelStateUpdateListener.postChannelCommand(channelUID, (Command) cachedValue.getChannelState());
         } else {
@@ -205,6 +262,29 @@ public class ChannelState implements MqttMessageSubscriber {
         receivedOrTimeout();
     }
 
+    private void repeatLastState(ChannelStateUpdateListener channelStateUpdateListener) {
+        channelStateUpdateListener.updateChannelState(channelUID, cachedValue.getChannelState());
+        receivedOrTimeout();
+    }
+
+    private void resetLastMessage() {
+        lastPayload = null;
+        lastValue = null;
+    }
+
+    private @Nullable Command parseCommand(String value) {
+        synchronized (parsedCommands) {
+            Command command = parsedCommands.get(value);
+            if (command == null) {
+                command = TypeParser.parseCommand(cachedValue.getSupportedCommandTypes(), value);
+                if (command != null) {
+                    parsedCommands.put(value, command);
+                }
+            }
+            return command;
+        }
+    }
+
     /**
      * Returns the state topic. Might be an empty string if this is a stateless channel (TRIGGER kind channel).
      */
@@ -242,7 +322,7 @@ public class ChannelState implements MqttMessageSubscriber {
     public CompletableFuture<@Nullable Void> stop() {
         final MqttBrokerConnection connection = this.connection;
         if (connection != null && !config.stateTopic.isBlank()) {
-            return connection.unsubscribe(config.stateTopic, this).thenRun(this::internalStop);
+            return connection.unsubscribe(config.stateTopic, subscriber).thenRun(this::internalStop);
         } else {
             internalStop();
             return CompletableFuture.completedFuture(null);
@@ -254,6 +334,7 @@ public class ChannelState implements MqttMessageSubscriber {
         this.connection = null;
         this.channelStateUpdateListener = null;
         hasSubscribed = false;
+        resetLastMessage();
         cachedValue.resetState();
     }
 
@@ -295,6 +376,8 @@ public class ChannelState implements MqttMessageSubscriber {
             hasSubscribed = false;
 
             this.connection = connection;
+            // delivers the messages on an inbound lane of the broker, if it has any
+            this.subscriber = MqttInboundDispatcher.subscriberFor(connection, this);
 
             if (config.stateTopic.isBlank()) {
                 return CompletableFuture.completedFuture(null);
@@ -302,7 +385,7 @@ public class ChannelState implements MqttMessageSubscriber {
 
             this.future = new CompletableFuture<>();
         }
-        connection.subscribe(config.stateTopic, this).thenRun(() -> {
+        connection.subscribe(config.stateTopic, subscriber).thenRun(() -> {
             hasSubscribed = true;
             logger.debug("Subscribed channel {} to topic: {}", this.channelUID, config.stateTopic);
             if (timeout > 0 && !future.isDone()) {
@@ -332,6 +415,8 @@ public class ChannelState implements MqttMessageSubscriber {
      */
     public CompletableFuture<Boolean> publishValue(Command command) {
         cachedValue.update(command);
+        // the value has changed, the next message has to be parsed even if it is identical to the last one
+        resetLastMessage();
 
         Value mqttCommandValue = cachedValue;
 
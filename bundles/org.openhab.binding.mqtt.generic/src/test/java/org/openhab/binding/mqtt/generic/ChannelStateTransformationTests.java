@@ -120,4 +120,21 @@ public class ChannelStateTransformationTests {
         verify(callback).stateUpdated(eq(textChannelUID), argThat(arg -> "23.2".equals(arg.toString())));
         assertThat(channelConfig.getCache().getChannelState().toString(), is("23.2"));
     }
+
+    @SuppressWarnings("null")
+    @Test
+    public void processIdenticalMessageWithJSONPath() throws Exception {
+        // the transformation is applied to every message, even if the payload has not changed
+        when(jsonPathService.transform(jsonPathPattern, jsonPathJSON)).thenReturn("23.2", "24.0");
+
+        thingHandler.initialize();
+        ChannelState channelConfig = thingHandler.getChannelState(textChannelUID);
+        channelConfig.setChannelStateUpdateListener(thingHandler);
+
+        channelConfig.processMessage(channelConfig.getStateTopic(), jsonPathJSON.getBytes());
+        channelConfig.processMessage(channelConfig.getStateTopic(), jsonPathJSON.getBytes());
+
+        verify(jsonPathService, times(2)).transform(jsonPathPattern, jsonPathJSON);
+        assertThat(channelConfig.getCache().getChannelState().toString(), is("24.0"));
+    }
 }
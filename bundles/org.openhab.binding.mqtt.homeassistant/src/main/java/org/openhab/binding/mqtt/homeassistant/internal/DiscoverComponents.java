@@ -68,6 +68,14 @@ public class DiscoverComponents implements MqttMessageSubscriber {
      */
     public static interface ComponentDiscovered {
         void componentDiscovered(HaID homeAssistantTopicID, AbstractComponent<?> component);
+
+        /**
+         * Returns the known component created from the given configuration, or null if the component has to be
+         * created from the configuration.
+         */
+        default @Nullable AbstractComponent<?> knownComponent(HaID homeAssistantTopicID, String config) {
+            return null;
+        }
     }
 
     /**
@@ -99,6 +107,17 @@ public class DiscoverComponents implements MqttMessageSubscriber {
         AbstractComponent<?> component = null;
 
         if (config.length() > 0) {
+            final ComponentDiscovered discoveredListener = this.discoveredListener;
+            if (discoveredListener != null) {
+                // Retained configurations are received again on every start, skip parsing them if unchanged
+                component = discoveredListener.knownComponent(haID, config);
+                if (component != null) {
+                    component.setConfigSeen();
+                    logger.trace("Configuration of HomeAssistant thing {} component {} is unchanged", haID.objectID,
+                            haID.component);
+                    return;
+                }
+            }
             try {
                 component = ComponentFactory.createComponent(thingUID, haID, config, updateListener, tracker, scheduler,
                         gson, transformationServiceProvider);
@@ -106,8 +125,9 @@ public class DiscoverComponents implements MqttMessageSubscriber {
 
                 logger.trace("Found HomeAssistant thing {} component {}", haID.objectID, haID.component);
 
-                if (discoveredListener != null) {
-                    discoveredListener.componentDiscovered(haID, component);
+                final ComponentDiscovered listener = this.discoveredListener;
+                if (listener != null) {
+                    listener.componentDiscovered(haID, component);
                 }
             } catch (UnsupportedComponentException e) {
                 logger.warn("HomeAssistant discover error: thing {} component type is unsupported: {}", haID.objectID,
@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.mqtt.homeassistant.internal;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Remembers what has been created from the configuration published on a HomeAssistant config topic, so a retained
+ * configuration that is received again, e.g. after a reconnect or when it is republished, does not have to be parsed
+ * again. An entry is only returned if the configuration is unchanged. The hash code of the configuration is compared
+ * first, so a changed configuration usually does not cost a full comparison.
+ *
+ * @author Marty Phelan - Initial contribution
+ *
+ * @param <T> What is created from a configuration
+ */
+@NonNullByDefault
+public class ParsedConfigCache<T> {
+    private final Map<String, Entry<T>> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private static class Entry<T> {
+        private final int configHash;
+        private final String config;
+        private final T value;
+
+        private Entry(String config, T value) {
+            this.configHash = config.hashCode();
+            this.config = config;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Returns what has been created from the given configuration of the given config topic, or null if the
+     * configuration of the topic is unknown or has changed.
+     */
+    public @Nullable T get(String topic, String config) {
+        Entry<T> entry = entries.get(topic);
+        if (entry != null && entry.configHash == config.hashCode() && entry.config.equals(config)) {
+            hits.incrementAndGet();
+            return entry.value;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(String topic, String config, T value) {
+        entries.put(topic, new Entry<>(config, value));
+    }
+
+    public void remove(String topic) {
+        entries.remove(topic);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the share of lookups that found an unchanged configuration, between 0 and 1
+     */
+    public double getHitRate() {
+        long hits = this.hits.get();
+        long lookups = hits + misses.get();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d configurations, %d hits, %d misses, hit rate %.1f%%", size(), getHits(), getMisses(),
+                getHitRate() * 100);
+    }
+}
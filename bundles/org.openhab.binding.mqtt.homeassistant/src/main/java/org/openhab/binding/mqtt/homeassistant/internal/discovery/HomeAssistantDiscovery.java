@@ -34,6 +34,7 @@ import org.openhab.binding.mqtt.generic.MqttChannelTypeProvider;
 import org.openhab.binding.mqtt.homeassistant.generic.internal.MqttBindingConstants;
 import org.openhab.binding.mqtt.homeassistant.internal.HaID;
 import org.openhab.binding.mqtt.homeassistant.internal.HandlerConfiguration;
+import org.openhab.binding.mqtt.homeassistant.internal.ParsedConfigCache;
 import org.openhab.binding.mqtt.homeassistant.internal.config.ChannelConfigurationTypeAdapterFactory;
 import org.openhab.binding.mqtt.homeassistant.internal.config.dto.AbstractChannelConfiguration;
 import org.openhab.binding.mqtt.homeassistant.internal.exception.ConfigurationException;
@@ -66,6 +67,8 @@ public class HomeAssistantDiscovery extends AbstractMQTTDiscovery {
     protected final Map<String, Set<HaID>> componentsPerThingID = new TreeMap<>();
     protected final Map<String, ThingUID> thingIDPerTopic = new TreeMap<>();
     protected final Map<String, DiscoveryResult> results = new ConcurrentHashMap<>();
+    // The parsed configurations by config topic, retained configurations are received again on every scan
+    protected final ParsedConfigCache<AbstractChannelConfiguration> configCache = new ParsedConfigCache<>();
 
     private @Nullable ScheduledFuture<?> future;
     private final Gson gson;
@@ -153,8 +156,12 @@ public class HomeAssistantDiscovery extends AbstractMQTTDiscovery {
         HaID haID = new HaID(topic);
 
         try {
-            AbstractChannelConfiguration config = AbstractChannelConfiguration
-                    .fromString(new String(payload, StandardCharsets.UTF_8), gson);
+            final String json = new String(payload, StandardCharsets.UTF_8);
+            AbstractChannelConfiguration config = configCache.get(topic, json);
+            if (config == null) {
+                config = AbstractChannelConfiguration.fromString(json, gson);
+                configCache.put(topic, json, config);
+            }
 
             final String thingID = config.getThingId(haID.objectID);
 
@@ -199,6 +206,7 @@ public class HomeAssistantDiscovery extends AbstractMQTTDiscovery {
         localResults = new ArrayList<>(results.values());
         results.clear();
         componentsPerThingID.clear();
+        logger.debug("HomeAssistant discovery configurations: {}", configCache);
         for (DiscoveryResult result : localResults) {
             final ThingTypeUID typeID = result.getThingTypeUID();
             ThingType type = typeProvider.derive(typeID, MqttBindingConstants.HOMEASSISTANT_MQTT_THING).build();
@@ -213,6 +221,7 @@ public class HomeAssistantDiscovery extends AbstractMQTTDiscovery {
         if (!topic.endsWith("/config")) {
             return;
         }
+        configCache.remove(topic);
         if (thingIDPerTopic.containsKey(topic)) {
             ThingUID thingUID = thingIDPerTopic.remove(topic);
             final String thingID = thingUID.getId();
@@ -37,6 +37,7 @@ import org.openhab.binding.mqtt.homeassistant.internal.DiscoverComponents;
 import org.openhab.binding.mqtt.homeassistant.internal.DiscoverComponents.ComponentDiscovered;
 import org.openhab.binding.mqtt.homeassistant.internal.HaID;
 import org.openhab.binding.mqtt.homeassistant.internal.HandlerConfiguration;
+import org.openhab.binding.mqtt.homeassistant.internal.ParsedConfigCache;
 import org.openhab.binding.mqtt.homeassistant.internal.component.AbstractComponent;
 import org.openhab.binding.mqtt.homeassistant.internal.component.ComponentFactory;
 import org.openhab.binding.mqtt.homeassistant.internal.config.ChannelConfigurationTypeAdapterFactory;
@@ -90,6 +91,8 @@ public class HomeAssistantThingHandler extends AbstractMQTTThingHandler
 
     private final Gson gson;
     protected final Map<String, AbstractComponent<?>> haComponents = new HashMap<>();
+    // The components by config topic, to skip unchanged configurations received again
+    protected final ParsedConfigCache<AbstractComponent<?>> componentCache = new ParsedConfigCache<>();
 
     protected HandlerConfiguration config = new HandlerConfiguration();
     private Set<HaID> discoveryHomeAssistantIDs = new HashSet<>();
@@ -158,6 +161,7 @@ public class HomeAssistantThingHandler extends AbstractMQTTThingHandler
                     component = ComponentFactory.createComponent(thingUID, haID, channelConfigurationJSON, this, this,
                             scheduler, gson, transformationServiceProvider);
                     haComponents.put(component.getGroupUID().getId(), component);
+                    componentCache.put(haID.getTopic("config"), channelConfigurationJSON, component);
                     component.addChannelTypes(channelTypeProvider);
                 } catch (ConfigurationException e) {
                     logger.error("Cannot not restore component {}: {}", thing, e.getMessage());
@@ -250,6 +254,14 @@ public class HomeAssistantThingHandler extends AbstractMQTTThingHandler
         delayedProcessing.accept(component);
     }
 
+    /**
+     * Callback of {@link DiscoverComponents}. Returns the known component if its configuration is unchanged.
+     */
+    @Override
+    public @Nullable AbstractComponent<?> knownComponent(HaID homeAssistantTopicID, String config) {
+        return componentCache.get(homeAssistantTopicID.getTopic("config"), config);
+    }
+
     /**
      * Callback of {@link DelayedBatchProcessing}.
      * Add all newly discovered components to the Thing and start the components.
@@ -281,6 +293,8 @@ public class HomeAssistantThingHandler extends AbstractMQTTThingHandler
                 discovered.addChannelTypes(channelTypeProvider);
                 // Add component to the component map
                 haComponents.put(discovered.getGroupUID().getId(), discovered);
+                componentCache.put(discovered.getHaID().getTopic("config"), discovered.getChannelConfigurationJson(),
+                        discovered);
                 // Start component / Subscribe to channel topics
                 discovered.start(connection, scheduler, 0).exceptionally(e -> {
                     logger.warn("Failed to start component {}", discovered.getGroupUID(), e);
@@ -292,6 +306,7 @@ public class HomeAssistantThingHandler extends AbstractMQTTThingHandler
                 ThingHelper.addChannelsToThing(thing, channels);
             }
         }
+        logger.debug("Component configurations of thing {}: {}", thing.getUID(), componentCache);
 
         updateThingType();
     }
@@ -154,6 +154,25 @@ public class HomeAssistantThingHandlerTests extends AbstractHomeAssistantTests {
         verify(channelTypeProvider, times(2)).removeChannelGroupType(any());
     }
 
+    @Test
+    public void testProcessUnchangedConfig() {
+        thingHandler.initialize();
+
+        var configTopic = "homeassistant/climate/0x847127fffe11dd6a_climate_zigbee2mqtt/config";
+        thingHandler.discoverComponents.processMessage(configTopic,
+                getResourceAsByteArray("component/configTS0601ClimateThermostat.json"));
+        thingHandler.delayedProcessing.forceProcessNow();
+        assertThat(haThing.getChannels().size(), CoreMatchers.is(6));
+
+        // The retained configuration is received again, e.g. after a reconnect
+        thingHandler.discoverComponents.processMessage(configTopic,
+                getResourceAsByteArray("component/configTS0601ClimateThermostat.json"));
+        thingHandler.delayedProcessing.forceProcessNow();
+        verify(thingHandler, times(1)).componentDiscovered(eq(new HaID(configTopic)), any(Climate.class));
+        assertThat(haThing.getChannels().size(), CoreMatchers.is(6));
+        assertThat(thingHandler.componentCache.getHits(), CoreMatchers.is(1L));
+    }
+
     @Test
     public void testProcessMessageFromUnsupportedComponent() {
         thingHandler.initialize();
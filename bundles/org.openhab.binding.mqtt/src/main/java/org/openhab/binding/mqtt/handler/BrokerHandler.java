@@ -49,6 +49,7 @@ import org.slf4j.LoggerFactory;
 public class BrokerHandler extends AbstractBrokerHandler implements PinnedCallback {
     private final Logger logger = LoggerFactory.getLogger(BrokerHandler.class);
     protected BrokerHandlerConfig config = new BrokerHandlerConfig();
+    private @Nullable MqttInboundDispatcher inboundDispatcher;
 
     public BrokerHandler(Bridge thing) {
         super(thing);
@@ -121,9 +122,22 @@ public class BrokerHandler extends AbstractBrokerHandler implements PinnedCallba
             }
         } catch (InterruptedException | ExecutionException | TimeoutException ignore) {
         }
+        final MqttInboundDispatcher inboundDispatcher = this.inboundDispatcher;
+        if (inboundDispatcher != null && connection != null) {
+            inboundDispatcher.shutdown(connection);
+        }
+        this.inboundDispatcher = null;
         super.dispose();
     }
 
+    /**
+     * Returns the dispatcher delivering the inbound messages of the broker on worker lanes, or null if the messages
+     * are delivered on the thread of the MQTT client.
+     */
+    public @Nullable MqttInboundDispatcher getInboundDispatcher() {
+        return inboundDispatcher;
+    }
+
     @Override
     public boolean discoveryEnabled() {
         return config.enableDiscovery;
@@ -234,6 +248,13 @@ public class BrokerHandler extends AbstractBrokerHandler implements PinnedCallba
         assignSSLContextProvider(config, connection, this);
         this.connection = connection;
 
+        if (config.inboundLanes > 0) {
+            final MqttInboundDispatcher inboundDispatcher = new MqttInboundDispatcher(thing.getUID().getId(),
+                    config.inboundLanes, Math.max(1, config.inboundQueueSize));
+            inboundDispatcher.register(connection);
+            this.inboundDispatcher = inboundDispatcher;
+        }
+
         super.initialize();
     }
 }
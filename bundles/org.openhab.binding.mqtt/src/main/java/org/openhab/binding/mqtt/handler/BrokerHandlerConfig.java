@@ -36,4 +36,8 @@ public class BrokerHandlerConfig extends MqttBrokerConnectionConfig {
     public String publickey = "";
 
     public boolean enableDiscovery = true;
+
+    // Inbound messages are delivered on the thread of the MQTT client if no lanes are configured
+    public int inboundLanes = 0;
+    public int inboundQueueSize = 1000;
 }
@@ -0,0 +1,209 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.mqtt.handler;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.core.common.NamedThreadFactory;
+import org.openhab.core.io.transport.mqtt.MqttBrokerConnection;
+import org.openhab.core.io.transport.mqtt.MqttMessageSubscriber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers inbound messages of a broker connection on worker lanes instead of the thread of the MQTT client, so a
+ * slow subscriber, e.g. a channel with a JavaScript transformation, does not delay the messages of other things.
+ *
+ * Each topic is mapped to one lane by its hash, so messages of a topic are delivered in order while different topics
+ * are delivered in parallel. Each lane has a bounded queue. If it is full, the oldest message of the lane is dropped.
+ *
+ * Subscribers get their lane dispatching subscriber with {@link #subscriberFor(MqttBrokerConnection,
+ * MqttMessageSubscriber)}, which returns the subscriber itself if the broker has no dispatcher.
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class MqttInboundDispatcher {
+    private static final Map<MqttBrokerConnection, MqttInboundDispatcher> DISPATCHERS = Collections
+            .synchronizedMap(new WeakHashMap<>());
+
+    private final Logger logger = LoggerFactory.getLogger(MqttInboundDispatcher.class);
+
+    private final String name;
+    private final Lane[] lanes;
+
+    /**
+     * Statistics of one lane
+     */
+    public static class Lane {
+        private final ThreadPoolExecutor executor;
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong maxLag = new AtomicLong();
+        private volatile long lastLag;
+
+        private Lane(String name, int queueSize) {
+            executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueSize),
+                    new NamedThreadFactory(name));
+        }
+
+        /**
+         * Returns the number of queued messages
+         */
+        public int getQueueDepth() {
+            return executor.getQueue().size();
+        }
+
+        public long getDelivered() {
+            return delivered.get();
+        }
+
+        /**
+         * Returns the number of messages dropped because the queue was full
+         */
+        public long getDropped() {
+            return dropped.get();
+        }
+
+        /**
+         * Returns the time in milliseconds the last delivered message was queued
+         */
+        public long getLastLag() {
+            return lastLag;
+        }
+
+        /**
+         * Returns the longest time in milliseconds a delivered message was queued
+         */
+        public long getMaxLag() {
+            return maxLag.get();
+        }
+    }
+
+    private class Delivery implements Runnable {
+        private final Lane lane;
+        private final MqttMessageSubscriber subscriber;
+        private final String topic;
+        private final byte[] payload;
+        private final long queued = System.currentTimeMillis();
+
+        private Delivery(Lane lane, MqttMessageSubscriber subscriber, String topic, byte[] payload) {
+            this.lane = lane;
+            this.subscriber = subscriber;
+            this.topic = topic;
+            this.payload = payload;
+        }
+
+        @Override
+        public void run() {
+            long lag = System.currentTimeMillis() - queued;
+            lane.lastLag = lag;
+            lane.maxLag.accumulateAndGet(lag, Math::max);
+            try {
+                subscriber.processMessage(topic, payload);
+            } catch (RuntimeException e) {
+                logger.warn("Subscriber failed to process message on topic {}", topic, e);
+            }
+            lane.delivered.incrementAndGet();
+        }
+    }
+
+    private class LaneSubscriber implements MqttMessageSubscriber {
+        private final MqttMessageSubscriber subscriber;
+
+        private LaneSubscriber(MqttMessageSubscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void processMessage(String topic, byte[] payload) {
+            dispatch(subscriber, topic, payload);
+        }
+    }
+
+    /**
+     * Creates a dispatcher
+     *
+     * @param name The name of the broker, used for the names of the lane threads
+     * @param laneCount The number of lanes
+     * @param queueSize The maximum number of queued messages per lane
+     */
+    public MqttInboundDispatcher(String name, int laneCount, int queueSize) {
+        this.name = name;
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane("mqtt-inbound-" + name + "-" + i, queueSize);
+        }
+    }
+
+    /**
+     * Returns a subscriber which delivers the messages of the given connection to the given subscriber on a lane of
+     * the dispatcher of the connection. If the connection has no dispatcher, the subscriber itself is returned.
+     *
+     * The returned subscriber has to be used to unsubscribe, too.
+     */
+    public static MqttMessageSubscriber subscriberFor(MqttBrokerConnection connection,
+            MqttMessageSubscriber subscriber) {
+        MqttInboundDispatcher dispatcher = DISPATCHERS.get(connection);
+        return dispatcher == null ? subscriber : dispatcher.new LaneSubscriber(subscriber);
+    }
+
+    /**
+     * Dispatches the inbound messages of the given connection from now on.
+     */
+    public void register(MqttBrokerConnection connection) {
+        DISPATCHERS.put(connection, this);
+    }
+
+    /**
+     * Stops dispatching the messages of the given connection and stops the lanes. Queued messages are dropped.
+     */
+    public void shutdown(MqttBrokerConnection connection) {
+        DISPATCHERS.remove(connection, this);
+        for (Lane lane : lanes) {
+            lane.executor.shutdownNow();
+        }
+    }
+
+    public Lane[] getLanes() {
+        return lanes.clone();
+    }
+
+    void dispatch(MqttMessageSubscriber subscriber, String topic, byte[] payload) {
+        Lane lane = lanes[Math.floorMod(topic.hashCode(), lanes.length)];
+        Delivery delivery = new Delivery(lane, subscriber, topic, payload);
+        while (true) {
+            try {
+                lane.executor.execute(delivery);
+                return;
+            } catch (RejectedExecutionException e) {
+                if (lane.executor.isShutdown()) {
+                    return;
+                }
+                // the lane is full, drop its oldest message
+                if (lane.executor.getQueue().poll() != null && lane.dropped.incrementAndGet() % 1000 == 1) {
+                    logger.warn("Inbound queue of broker {} is full, dropped {} messages of topics like {} so far",
+                            name, lane.dropped.get(), topic);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.mqtt.handler;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.io.transport.mqtt.MqttBrokerConnection;
+import org.openhab.core.io.transport.mqtt.MqttMessageSubscriber;
+
+/**
+ * Tests cases for {@link MqttInboundDispatcher}.
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class MqttInboundDispatcherTest {
+
+    @Test
+    public void subscriberForRegisteredConnection() {
+        MqttBrokerConnection connection = mock(MqttBrokerConnection.class);
+        MqttMessageSubscriber subscriber = (topic, payload) -> {
+        };
+        assertThat(MqttInboundDispatcher.subscriberFor(connection, subscriber), is(sameInstance(subscriber)));
+
+        MqttInboundDispatcher dispatcher = new MqttInboundDispatcher("test", 2, 10);
+        dispatcher.register(connection);
+        assertThat(MqttInboundDispatcher.subscriberFor(connection, subscriber), is(not(sameInstance(subscriber))));
+
+        dispatcher.shutdown(connection);
+        assertThat(MqttInboundDispatcher.subscriberFor(connection, subscriber), is(sameInstance(subscriber)));
+    }
+
+    @Test
+    public void messagesOfTopicAreDeliveredInOrder() throws InterruptedException {
+        MqttBrokerConnection connection = mock(MqttBrokerConnection.class);
+        MqttInboundDispatcher dispatcher = new MqttInboundDispatcher("test", 4, 1000);
+        dispatcher.register(connection);
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(100);
+        MqttMessageSubscriber subscriber = (topic, payload) -> {
+            received.add(new String(payload));
+            latch.countDown();
+        };
+        MqttMessageSubscriber laneSubscriber = MqttInboundDispatcher.subscriberFor(connection, subscriber);
+        for (int i = 0; i < 100; i++) {
+            laneSubscriber.processMessage("a/topic", String.valueOf(i).getBytes());
+        }
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            expected.add(String.valueOf(i));
+        }
+        assertThat(received, is(expected));
+
+        dispatcher.shutdown(connection);
+        assertThat(MqttInboundDispatcher.subscriberFor(connection, subscriber), is(sameInstance(subscriber)));
+    }
+
+    @Test
+    public void fullLaneDropsOldestMessage() throws InterruptedException {
+        MqttBrokerConnection connection = mock(MqttBrokerConnection.class);
+        MqttInboundDispatcher dispatcher = new MqttInboundDispatcher("test", 1, 2);
+        dispatcher.register(connection);
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        MqttMessageSubscriber subscriber = (topic, payload) -> {
+            blocked.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(new String(payload));
+            done.countDown();
+        };
+        MqttMessageSubscriber laneSubscriber = MqttInboundDispatcher.subscriberFor(connection, subscriber);
+        // the first message blocks the lane, the following ones are queued
+        laneSubscriber.processMessage("topic", "1".getBytes());
+        assertThat(blocked.await(5, TimeUnit.SECONDS), is(true));
+        laneSubscriber.processMessage("topic", "2".getBytes());
+        laneSubscriber.processMessage("topic", "3".getBytes());
+        laneSubscriber.processMessage("topic", "4".getBytes());
+        release.countDown();
+
+        assertThat(done.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(received, is(List.of("1", "3", "4")));
+        assertThat(dispatcher.getLanes()[0].getDropped(), is(1L));
+        assertThat(dispatcher.getLanes()[0].getMaxLag() >= dispatcher.getLanes()[0].getLastLag(), is(true));
+
+        dispatcher.shutdown(connection);
+        assertThat(MqttInboundDispatcher.subscriberFor(connection, subscriber), is(sameInstance(subscriber)));
+        // messages for a connection which has been shut down are not delivered
+        laneSubscriber.processMessage("topic", "5".getBytes());
+        assertThat(received, is(List.of("1", "3", "4")));
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.dynamodb.internal;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteResult;
+import software.amazon.awssdk.enhanced.dynamodb.model.WriteBatch;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+
+/**
+ * Coalesces DTOs of one table into BatchWriteItem requests.
+ *
+ * A batch is written when {@link #MAX_BATCH_SIZE} DTOs are buffered, or {@link #LINGER} after the first DTO was
+ * buffered. Items which DynamoDB reports as unprocessed, e.g. due to throttling, are retried with exponential backoff
+ * and full jitter.
+ *
+ * If the table does not exist, the first DTO of the batch is written with {@link TableCreatingPutItem}, creating the
+ * table, and the rest of the batch is written after that.
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class DynamoDBBatchWriter<T extends DynamoDBItem<?>> {
+    /**
+     * Maximum number of put requests in one BatchWriteItem request
+     */
+    static final int MAX_BATCH_SIZE = 25;
+    static final Duration LINGER = Duration.ofMillis(100);
+    private static final int MAX_ATTEMPTS = 8;
+    private static final long BACKOFF_BASE_MILLIS = 50;
+    private static final long BACKOFF_MAX_MILLIS = 5000;
+
+    private final Logger logger = LoggerFactory.getLogger(DynamoDBBatchWriter.class);
+
+    private final DynamoDBPersistenceService service;
+    private final DynamoDbEnhancedAsyncClient client;
+    private final DynamoDbAsyncTable<T> table;
+    private final Class<T> dtoClass;
+    private final ExecutorService executor;
+
+    private final Object bufferLock = new Object();
+    private List<T> buffer = new ArrayList<>();
+    private boolean flushScheduled;
+    private final Set<CompletableFuture<Void>> pendingWrites = ConcurrentHashMap.newKeySet();
+
+    public DynamoDBBatchWriter(DynamoDBPersistenceService service, DynamoDbEnhancedAsyncClient client,
+            DynamoDbAsyncTable<T> table, Class<T> dtoClass) {
+        this.service = service;
+        this.client = client;
+        this.table = table;
+        this.dtoClass = dtoClass;
+        this.executor = service.getExecutor();
+    }
+
+    public void add(T dto) {
+        List<T> batch = null;
+        boolean scheduleFlush = false;
+        synchronized (bufferLock) {
+            buffer.add(dto);
+            if (buffer.size() >= MAX_BATCH_SIZE) {
+                batch = buffer;
+                buffer = new ArrayList<>();
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                scheduleFlush = true;
+            }
+        }
+        if (batch != null) {
+            track(write(batch, 1));
+        } else if (scheduleFlush) {
+            CompletableFuture.runAsync(this::flush,
+                    CompletableFuture.delayedExecutor(LINGER.toMillis(), TimeUnit.MILLISECONDS, executor));
+        }
+    }
+
+    /**
+     * Writes the buffered DTOs
+     *
+     * @return future completing when all writes started so far, including their retries, have completed
+     */
+    public CompletableFuture<Void> flush() {
+        List<T> batch;
+        synchronized (bufferLock) {
+            flushScheduled = false;
+            batch = buffer;
+            buffer = new ArrayList<>();
+        }
+        if (!batch.isEmpty()) {
+            track(write(batch, 1));
+        }
+        return CompletableFuture.allOf(pendingWrites.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private void track(CompletableFuture<Void> write) {
+        pendingWrites.add(write);
+        write.whenComplete((result, exception) -> pendingWrites.remove(write));
+    }
+
+    private CompletableFuture<Void> write(List<T> batch, int attempt) {
+        List<T> dtos = withoutDuplicateKeys(batch);
+        Instant start = Instant.now();
+        WriteBatch.Builder<T> writeBatch = WriteBatch.builder(dtoClass).mappedTableResource(table);
+        dtos.forEach(writeBatch::addPutItem);
+        return client.batchWriteItem(request -> request.writeBatches(writeBatch.build()))
+                .handleAsync((result, exception) -> {
+                    if (exception == null) {
+                        logger.trace("BatchWriteItem: {} DTOs written in {} ms (attempt {})", dtos.size(),
+                                Duration.between(start, Instant.now()).toMillis(), attempt);
+                        return retryUnprocessed(result, attempt);
+                    }
+                    Throwable cause = exception.getCause() == null ? exception : exception.getCause();
+                    if (cause instanceof ResourceNotFoundException) {
+                        logger.trace("BatchWriteItem: Table '{}' was not present. Creating it with the first DTO",
+                                table.tableName());
+                        return createTableAndWrite(dtos);
+                    } else if (cause instanceof SdkException && ((SdkException) cause).retryable()
+                            && attempt < MAX_ATTEMPTS) {
+                        logger.debug("BatchWriteItem: failed with {} {}, retrying", cause.getClass().getSimpleName(),
+                                cause.getMessage());
+                        return retryLater(dtos, attempt);
+                    } else {
+                        logger.warn("BatchWriteItem: failed (final) with {} {}. {} DTOs are not written.",
+                                cause.getClass().getSimpleName(), cause.getMessage(), dtos.size());
+                        return CompletableFuture.<Void> completedFuture(null);
+                    }
+                }, executor).thenCompose(next -> next);
+    }
+
+    private CompletableFuture<Void> retryUnprocessed(BatchWriteResult result, int attempt) {
+        List<T> unprocessed = result.unprocessedPutItemsForTable(table);
+        if (unprocessed.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        } else if (attempt >= MAX_ATTEMPTS) {
+            logger.warn("BatchWriteItem: {} DTOs still unprocessed after {} attempts. They are not written.",
+                    unprocessed.size(), attempt);
+            return CompletableFuture.completedFuture(null);
+        }
+        logger.debug("BatchWriteItem: {} DTOs unprocessed, retrying", unprocessed.size());
+        return retryLater(unprocessed, attempt);
+    }
+
+    private CompletableFuture<Void> retryLater(List<T> dtos, int attempt) {
+        long delay = backoffMillis(attempt);
+        return CompletableFuture.supplyAsync(() -> write(dtos, attempt + 1),
+                CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, executor)).thenCompose(next -> next);
+    }
+
+    private CompletableFuture<Void> createTableAndWrite(List<T> dtos) {
+        return new TableCreatingPutItem<>(service, dtos.get(0), table).putItemAsync().handleAsync((result, e) -> {
+            if (e != null) {
+                logger.warn("BatchWriteItem: Table creation failed. {} DTOs are not written.", dtos.size());
+                return CompletableFuture.<Void> completedFuture(null);
+            }
+            List<T> rest = dtos.subList(1, dtos.size());
+            return rest.isEmpty() ? CompletableFuture.<Void> completedFuture(null) : write(rest, 1);
+        }, executor).thenCompose(next -> next);
+    }
+
+    /**
+     * Exponential backoff with full jitter
+     */
+    static long backoffMillis(int attempt) {
+        long cap = Math.min(BACKOFF_MAX_MILLIS, BACKOFF_BASE_MILLIS << Math.min(attempt - 1, 16));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    /**
+     * BatchWriteItem rejects requests which put the same key twice. As with consecutive PutItem requests, the last
+     * DTO wins.
+     */
+    private List<T> withoutDuplicateKeys(List<T> batch) {
+        Map<String, T> dtos = new LinkedHashMap<>();
+        for (T dto : batch) {
+            @Nullable
+            T previous = dtos.put(dto.getName() + '\u0000' + dto.getTime().toInstant().toEpochMilli(), dto);
+            if (previous != null) {
+                logger.trace("BatchWriteItem: DTO {} is replaced by {} with the same key", previous, dto);
+            }
+        }
+        return dtos.size() == batch.size() ? batch : new ArrayList<>(dtos.values());
+    }
+}
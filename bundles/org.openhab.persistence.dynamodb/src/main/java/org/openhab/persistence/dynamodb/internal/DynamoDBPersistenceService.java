@@ -28,6 +28,8 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 import javax.measure.Unit;
@@ -57,7 +59,6 @@ import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
-import org.reactivestreams.Subscriber;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -75,6 +76,7 @@ import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
 import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClientBuilder;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
 
 /**
@@ -88,6 +90,7 @@ import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
  *
  * @author Sami Salonen - Initial contribution
  * @author Kai Kreuzer - Migration to 3.x
+ * @author Marty Phelan - Batched writes and query cursors
  *
  */
 @NonNullByDefault
@@ -115,6 +118,9 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
     private static final Duration TIMEOUT_API_CALL_ATTEMPT = Duration.ofSeconds(5);
     private Map<Class<? extends DynamoDBItem<?>>, DynamoDbAsyncTable<? extends DynamoDBItem<?>>> tableCache = new ConcurrentHashMap<>(
             2);
+    private final Map<Class<? extends DynamoDBItem<?>>, DynamoDBBatchWriter<?>> batchWriters = new ConcurrentHashMap<>(
+            2);
+    private final DynamoDBQueryCursors queryCursors = new DynamoDBQueryCursors();
 
     private @Nullable URI endpointOverride;
 
@@ -291,6 +297,21 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
         return table;
     }
 
+    private <T extends DynamoDBItem<?>> DynamoDBBatchWriter<T> getBatchWriter(Class<T> dtoClass) {
+        DynamoDbEnhancedAsyncClient localClient = client;
+        if (!ensureClient() || localClient == null) {
+            throw new IllegalStateException("Client not ready");
+        }
+        @SuppressWarnings("unchecked") // OK since this is the only place batchWriters is populated
+        DynamoDBBatchWriter<T> batchWriter = (DynamoDBBatchWriter<T>) batchWriters.computeIfAbsent(dtoClass,
+                clz -> new DynamoDBBatchWriter<>(this, localClient, getTable(dtoClass), dtoClass));
+        if (batchWriter == null) {
+            // Invariant. To make null checker happy
+            throw new IllegalStateException();
+        }
+        return batchWriter;
+    }
+
     private static <T extends DynamoDBItem<?>> TableSchema<T> getDynamoDBTableSchema(Class<T> dtoClass,
             ExpectedTableSchema expectedTableSchemaRevision) {
         if (dtoClass.equals(DynamoDBBigDecimalItem.class)) {
@@ -315,6 +336,7 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
         if (client == null || localLowLevelClient == null) {
             return;
         }
+        flushBatchWriters();
         localLowLevelClient.close();
         lowLevelClient = null;
         client = null;
@@ -322,6 +344,21 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
         tableNameResolver = null;
         isProperlyConfigured = false;
         tableCache.clear();
+        batchWriters.clear();
+        queryCursors.clear();
+    }
+
+    private void flushBatchWriters() {
+        CompletableFuture<?>[] flushes = batchWriters.values().stream().map(DynamoDBBatchWriter::flush)
+                .toArray(CompletableFuture<?>[]::new);
+        try {
+            CompletableFuture.allOf(flushes).get(TIMEOUT_API_CALL.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Not all buffered items could be written: {} {}", e.getClass().getSimpleName(),
+                    e.getMessage());
+        }
     }
 
     protected boolean isReadyToStore() {
@@ -412,11 +449,18 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
             QueryEnhancedRequest queryExpression = DynamoDBQueryUtils.createQueryExpression(dtoClass,
                     localTableNameResolver.getTableSchema(), item, filter);
 
-            CompletableFuture<List<DynamoDBItem<?>>> itemsFuture = new CompletableFuture<>();
-            final SdkPublisher<? extends DynamoDBItem<?>> itemPublisher = table.query(queryExpression).items();
-            Subscriber<DynamoDBItem<?>> pageSubscriber = new PageOfInterestSubscriber<DynamoDBItem<?>>(itemsFuture,
-                    filter.getPageNumber(), filter.getPageSize());
-            itemPublisher.subscribe(pageSubscriber);
+            // Continue after the closest page read before, instead of reading all pages up to the requested one
+            String queryKey = DynamoDBQueryCursors.queryKey(tableName, filter);
+            DynamoDBQueryCursors.Cursor cursor = queryCursors.isStable(filter)
+                    ? queryCursors.find(queryKey, filter.getPageNumber())
+                    : new DynamoDBQueryCursors.Cursor(0, null);
+            Map<String, AttributeValue> exclusiveStartKey = cursor.getExclusiveStartKey();
+            if (exclusiveStartKey != null) {
+                logger.trace("Continuing query after page {}", cursor.getPageNumber() - 1);
+                queryExpression = queryExpression.toBuilder().exclusiveStartKey(exclusiveStartKey).build();
+            }
+            CompletableFuture<? extends List<? extends DynamoDBItem<?>>> itemsFuture = queryPage(table,
+                    queryExpression, queryKey, cursor.getPageNumber(), filter);
             // NumberItem.getUnit() is expensive, we avoid calling it in the loop
             // by fetching the unit here.
             final Item localItem = item;
@@ -462,6 +506,25 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
         }
     }
 
+    /**
+     * Reads the requested page, starting at the given page, and remembers where the next page starts
+     */
+    private <T extends DynamoDBItem<?>> CompletableFuture<List<T>> queryPage(DynamoDbAsyncTable<T> table,
+            QueryEnhancedRequest queryExpression, String queryKey, int startPageNumber, FilterCriteria filter) {
+        CompletableFuture<List<T>> itemsFuture = new CompletableFuture<>();
+        final SdkPublisher<T> itemPublisher = table.query(queryExpression).items();
+        itemPublisher.subscribe(new PageOfInterestSubscriber<T>(itemsFuture,
+                filter.getPageNumber() - startPageNumber, filter.getPageSize()));
+        return itemsFuture.thenApply(page -> {
+            if (!page.isEmpty() && page.size() == filter.getPageSize() && queryCursors.isStable(filter)) {
+                TableSchema<T> schema = table.tableSchema();
+                queryCursors.put(queryKey, filter.getPageNumber() + 1,
+                        schema.itemToMap(page.get(page.size() - 1), schema.tableMetadata().primaryKeys()));
+            }
+            return page;
+        });
+    }
+
     /**
      * Retrieves the item for the given name from the item registry
      *
@@ -552,21 +615,20 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
             }
             logger.trace("store() called with item {} {} '{}', which was converted to DTO {}",
                     copiedItem.getClass().getSimpleName(), effectiveName, copiedItem.getState(), dto);
-            dto.accept(new DynamoDBItemVisitor<TableCreatingPutItem<? extends DynamoDBItem<?>>>() {
+            dto.accept(new DynamoDBItemVisitor<@Nullable Void>() {
 
                 @Override
-                public TableCreatingPutItem<? extends DynamoDBItem<?>> visit(
-                        DynamoDBBigDecimalItem dynamoBigDecimalItem) {
-                    return new TableCreatingPutItem<DynamoDBBigDecimalItem>(DynamoDBPersistenceService.this,
-                            dynamoBigDecimalItem, getTable(DynamoDBBigDecimalItem.class));
+                public @Nullable Void visit(DynamoDBBigDecimalItem dynamoBigDecimalItem) {
+                    getBatchWriter(DynamoDBBigDecimalItem.class).add(dynamoBigDecimalItem);
+                    return null;
                 }
 
                 @Override
-                public TableCreatingPutItem<? extends DynamoDBItem<?>> visit(DynamoDBStringItem dynamoStringItem) {
-                    return new TableCreatingPutItem<DynamoDBStringItem>(DynamoDBPersistenceService.this,
-                            dynamoStringItem, getTable(DynamoDBStringItem.class));
+                public @Nullable Void visit(DynamoDBStringItem dynamoStringItem) {
+                    getBatchWriter(DynamoDBStringItem.class).add(dynamoStringItem);
+                    return null;
                 }
-            }).putItemAsync();
+            });
         }, executor).exceptionally(e -> {
             logger.error("Unexcepted error", e);
             return null;
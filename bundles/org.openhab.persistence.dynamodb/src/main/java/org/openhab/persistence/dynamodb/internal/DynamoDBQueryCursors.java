@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.dynamodb.internal;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.FilterCriteria.Ordering;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Remembers where the pages of recent queries start.
+ *
+ * DynamoDB has no offset for queries, a query can only continue after a known key. To read page N, all earlier pages
+ * would have to be read again. Instead, the key of the last item of each page read is remembered, and a query for a
+ * later page continues from the closest page before it.
+ *
+ * Cursors are only remembered for queries whose earlier pages do not change when new states are stored: queries in
+ * ascending order, where new states are appended to the last page, and queries ending before
+ * {@link #STABLE_AFTER}. The cursors of a query expire after {@link #MAX_AGE} nevertheless.
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class DynamoDBQueryCursors {
+    static final int MAX_QUERIES = 64;
+    static final Duration MAX_AGE = Duration.ofMinutes(1);
+    static final Duration STABLE_AFTER = Duration.ofMinutes(1);
+
+    private final Clock clock;
+
+    private final Map<String, QueryCursors> queries = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.@Nullable Entry<String, QueryCursors> eldest) {
+            return size() > MAX_QUERIES;
+        }
+    };
+
+    /**
+     * Position to start reading a query at
+     */
+    public static class Cursor {
+        private final int pageNumber;
+        private final @Nullable Map<String, AttributeValue> exclusiveStartKey;
+
+        Cursor(int pageNumber, @Nullable Map<String, AttributeValue> exclusiveStartKey) {
+            this.pageNumber = pageNumber;
+            this.exclusiveStartKey = exclusiveStartKey;
+        }
+
+        /**
+         * Page starting at this cursor
+         */
+        public int getPageNumber() {
+            return pageNumber;
+        }
+
+        /**
+         * Key after which the page starts, or null for the first page
+         */
+        public @Nullable Map<String, AttributeValue> getExclusiveStartKey() {
+            return exclusiveStartKey;
+        }
+    }
+
+    private static class QueryCursors {
+        private final Instant created;
+        private final TreeMap<Integer, Map<String, AttributeValue>> startKeys = new TreeMap<>();
+
+        private QueryCursors(Instant created) {
+            this.created = created;
+        }
+    }
+
+    public DynamoDBQueryCursors() {
+        this(Clock.systemUTC());
+    }
+
+    DynamoDBQueryCursors(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Identifies a query, regardless of the page number
+     */
+    public static String queryKey(String tableName, FilterCriteria filter) {
+        return String.join("|", tableName, filter.getItemName(), String.valueOf(filter.getBeginDate()),
+                String.valueOf(filter.getEndDate()), String.valueOf(filter.getOrdering()),
+                String.valueOf(filter.getOperator()), String.valueOf(filter.getState()),
+                String.valueOf(filter.getPageSize()));
+    }
+
+    /**
+     * Whether the pages of the query are stable, so it can be continued from a cursor
+     */
+    public boolean isStable(FilterCriteria filter) {
+        return filter.getOrdering() == Ordering.ASCENDING || (filter.getEndDate() != null
+                && filter.getEndDate().toInstant().isBefore(clock.instant().minus(STABLE_AFTER)));
+    }
+
+    /**
+     * Finds the closest known start of the given page, or the start of the first page
+     */
+    public synchronized Cursor find(String queryKey, int pageNumber) {
+        QueryCursors cursors = queries.get(queryKey);
+        if (cursors == null) {
+            return new Cursor(0, null);
+        }
+        if (isExpired(cursors)) {
+            queries.remove(queryKey);
+            return new Cursor(0, null);
+        }
+        Map.Entry<Integer, Map<String, AttributeValue>> closest = cursors.startKeys.floorEntry(pageNumber);
+        return closest == null ? new Cursor(0, null) : new Cursor(closest.getKey(), closest.getValue());
+    }
+
+    /**
+     * Remembers the key after which the given page starts
+     */
+    public synchronized void put(String queryKey, int pageNumber, Map<String, AttributeValue> exclusiveStartKey) {
+        QueryCursors cursors = queries.get(queryKey);
+        if (cursors == null || isExpired(cursors)) {
+            cursors = new QueryCursors(clock.instant());
+            queries.put(queryKey, cursors);
+        }
+        cursors.startKeys.put(pageNumber, exclusiveStartKey);
+    }
+
+    public synchronized void clear() {
+        queries.clear();
+    }
+
+    private boolean isExpired(QueryCursors cursors) {
+        return cursors.created.plus(MAX_AGE).isBefore(clock.instant());
+    }
+}
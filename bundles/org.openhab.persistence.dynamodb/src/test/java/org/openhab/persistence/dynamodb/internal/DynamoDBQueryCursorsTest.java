@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.dynamodb.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.FilterCriteria.Ordering;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ *
+ * @author Marty Phelan - Initial contribution
+ *
+ */
+@NonNullByDefault
+public class DynamoDBQueryCursorsTest {
+
+    private static final String QUERY = "query";
+    private static final Map<String, AttributeValue> KEY_PAGE_2 = Map.of("i", AttributeValue.builder().s("a").build());
+    private static final Map<String, AttributeValue> KEY_PAGE_4 = Map.of("i", AttributeValue.builder().s("b").build());
+
+    private Instant now = Instant.parse("2022-04-01T10:00:00Z");
+    private DynamoDBQueryCursors cursors = new DynamoDBQueryCursors(new Clock() {
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(@NonNullByDefault({}) java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    });
+
+    @Test
+    public void testUnknownQueryStartsAtFirstPage() {
+        DynamoDBQueryCursors.Cursor cursor = cursors.find(QUERY, 3);
+        assertEquals(0, cursor.getPageNumber());
+        assertNull(cursor.getExclusiveStartKey());
+    }
+
+    @Test
+    public void testClosestPreviousPageIsFound() {
+        cursors.put(QUERY, 2, KEY_PAGE_2);
+        cursors.put(QUERY, 4, KEY_PAGE_4);
+
+        assertEquals(0, cursors.find(QUERY, 1).getPageNumber());
+        assertEquals(2, cursors.find(QUERY, 2).getPageNumber());
+        assertEquals(KEY_PAGE_2, cursors.find(QUERY, 3).getExclusiveStartKey());
+        assertEquals(KEY_PAGE_4, cursors.find(QUERY, 7).getExclusiveStartKey());
+        assertEquals(0, cursors.find("other query", 7).getPageNumber());
+    }
+
+    @Test
+    public void testCursorsExpire() {
+        cursors.put(QUERY, 2, KEY_PAGE_2);
+        now = now.plus(DynamoDBQueryCursors.MAX_AGE).plusSeconds(1);
+
+        assertEquals(0, cursors.find(QUERY, 2).getPageNumber());
+    }
+
+    @Test
+    public void testOnlyQueriesWithStablePagesAreContinued() {
+        FilterCriteria filter = new FilterCriteria();
+        filter.setOrdering(Ordering.ASCENDING);
+        assertTrue(cursors.isStable(filter));
+
+        filter.setOrdering(Ordering.DESCENDING);
+        assertFalse(cursors.isStable(filter));
+
+        filter.setEndDate(ZonedDateTime.ofInstant(now.minusSeconds(10), ZoneOffset.UTC));
+        assertFalse(cursors.isStable(filter));
+
+        filter.setEndDate(ZonedDateTime.ofInstant(now.minus(DynamoDBQueryCursors.STABLE_AFTER).minusSeconds(1),
+                ZoneOffset.UTC));
+        assertTrue(cursors.isStable(filter));
+    }
+}
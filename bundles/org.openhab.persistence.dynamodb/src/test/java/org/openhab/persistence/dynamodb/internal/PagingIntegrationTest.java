@@ -164,6 +164,32 @@ public class PagingIntegrationTest extends BaseIntegrationTest {
         });
     }
 
+    @SuppressWarnings("null")
+    @Test
+    public void testPagingPagesInSequence() {
+        waitForAssert(() -> {
+            // later pages continue after the previous page
+            int[][] expectedPages = { { 0, 1, 2 }, { 3, 4, 5 }, { 6, 7, 8 }, { 9 }, {} };
+            for (int pageNumber = 0; pageNumber < expectedPages.length; pageNumber++) {
+                FilterCriteria criteria = new FilterCriteria();
+                criteria.setItemName(NAME);
+                criteria.setBeginDate(storeStart);
+                criteria.setOrdering(Ordering.ASCENDING);
+                criteria.setPageNumber(pageNumber);
+                criteria.setPageSize(3);
+                assertItemStates(BaseIntegrationTest.service.query(criteria), expectedPages[pageNumber]);
+            }
+            // and earlier pages can still be read
+            FilterCriteria criteria = new FilterCriteria();
+            criteria.setItemName(NAME);
+            criteria.setBeginDate(storeStart);
+            criteria.setOrdering(Ordering.ASCENDING);
+            criteria.setPageNumber(1);
+            criteria.setPageSize(3);
+            assertItemStates(BaseIntegrationTest.service.query(criteria), 3, 4, 5);
+        });
+    }
+
     private void assertItemStates(Iterable<HistoricItem> actualIterable, int... expected) {
         Iterator<HistoricItem> actualIterator = actualIterable.iterator();
         List<DecimalType> expectedStates = new ArrayList<>();
@@ -40,6 +40,7 @@ import org.openhab.persistence.influxdb.internal.InfluxDBHistoricItem;
 import org.openhab.persistence.influxdb.internal.InfluxDBPersistentItemInfo;
 import org.openhab.persistence.influxdb.internal.InfluxDBRepository;
 import org.openhab.persistence.influxdb.internal.InfluxDBStateConvertUtils;
+import org.openhab.persistence.influxdb.internal.InfluxDBWriteCounters;
 import org.openhab.persistence.influxdb.internal.InfluxPoint;
 import org.openhab.persistence.influxdb.internal.InfluxRow;
 import org.openhab.persistence.influxdb.internal.ItemToStorePointCreator;
@@ -133,6 +134,8 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
         logger.debug("InfluxDB persistence service deactivated");
         if (influxDBRepository != null) {
             influxDBRepository.disconnect();
+            // the counters are complete once the buffered points have been written on disconnect
+            logger.debug("InfluxDB write counters: {}", influxDBRepository.getWriteCounters());
             influxDBRepository = null;
         }
         if (itemToStorePointCreator != null) {
@@ -236,6 +239,16 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
         }
     }
 
+    /**
+     * Returns the counters of written, dropped and retried points, e.g. for metrics
+     *
+     * @return Counters of the current connection or null if the service is not active
+     */
+    public @Nullable InfluxDBWriteCounters getWriteCounters() {
+        InfluxDBRepository currentRepository = influxDBRepository;
+        return currentRepository != null ? currentRepository.getWriteCounters() : null;
+    }
+
     private HistoricItem mapRow2HistoricItem(InfluxRow row) {
         State state = InfluxDBStateConvertUtils.objectToState(row.getValue(), row.getItemName(), itemRegistry);
         return new InfluxDBHistoricItem(row.getItemName(), state,
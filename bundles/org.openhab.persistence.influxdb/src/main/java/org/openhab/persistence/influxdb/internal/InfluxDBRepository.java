@@ -71,4 +71,11 @@ public interface InfluxDBRepository {
      * @param influxPoint Point to write
      */
     void write(InfluxPoint influxPoint);
+
+    /**
+     * Returns the counters of written, dropped and retried points
+     *
+     * @return Counters of this repository
+     */
+    InfluxDBWriteCounters getWriteCounters();
 }
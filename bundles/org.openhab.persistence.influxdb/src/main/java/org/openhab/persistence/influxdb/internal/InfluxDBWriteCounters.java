@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Counts what happened to the points given to an {@link InfluxDBRepository}.
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class InfluxDBWriteCounters {
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+
+    public void addSubmitted(long points) {
+        submitted.addAndGet(points);
+    }
+
+    public void addWritten(long points) {
+        written.addAndGet(points);
+    }
+
+    public void addDropped(long points) {
+        dropped.addAndGet(points);
+    }
+
+    public void addRetried(long points) {
+        retried.addAndGet(points);
+    }
+
+    /**
+     * Counts the pending points as written. Used once the client has been closed, if it only reports failed writes.
+     *
+     * @return the number of points which have been counted as written
+     */
+    public long countPendingAsWritten() {
+        long pending = getPending();
+        written.addAndGet(pending);
+        return pending;
+    }
+
+    /**
+     * Counts the pending points as dropped. Used once the client has been closed, if it only reports successful
+     * writes.
+     *
+     * @return the number of points which have been counted as dropped
+     */
+    public long countPendingAsDropped() {
+        long pending = getPending();
+        dropped.addAndGet(pending);
+        return pending;
+    }
+
+    /**
+     * Returns the number of points which have been given to the client
+     */
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    /**
+     * Returns the number of points which have been acknowledged by the database. With InfluxDB 1, the client only
+     * reports failed writes, so points are counted as written when the repository is disconnected.
+     */
+    public long getWritten() {
+        return written.get();
+    }
+
+    /**
+     * Returns the number of points which are lost, because they could not be written or did not fit into the write
+     * buffer. With InfluxDB 2, the points of a failed write are only known and counted when the repository is
+     * disconnected.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the number of submitted points which have neither been counted as written nor as dropped yet
+     */
+    public long getPending() {
+        return Math.max(0, submitted.get() - written.get() - dropped.get());
+    }
+
+    /**
+     * Returns the number of failed writes which are retried
+     */
+    public long getRetried() {
+        return retried.get();
+    }
+
+    @Override
+    public String toString() {
+        return "InfluxDBWriteCounters{submitted=" + submitted + ", written=" + written + ", dropped=" + dropped
+                + ", retried=" + retried + '}';
+    }
+}
@@ -20,6 +20,7 @@ import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.TAG_IT
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -28,6 +29,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.influxdb.BatchOptions;
 import org.influxdb.InfluxDB;
 import org.influxdb.InfluxDBFactory;
 import org.influxdb.dto.Point;
@@ -36,6 +38,7 @@ import org.influxdb.dto.Query;
 import org.influxdb.dto.QueryResult;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBRepository;
+import org.openhab.persistence.influxdb.internal.InfluxDBWriteCounters;
 import org.openhab.persistence.influxdb.internal.InfluxPoint;
 import org.openhab.persistence.influxdb.internal.InfluxRow;
 import org.openhab.persistence.influxdb.internal.UnnexpectedConditionException;
@@ -52,7 +55,11 @@ import org.slf4j.LoggerFactory;
  */
 @NonNullByDefault
 public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
+    private static final int DEFAULT_BATCH_SIZE = 200;
+    private static final int DEFAULT_FLUSH_INTERVAL = 100;
+
     private final Logger logger = LoggerFactory.getLogger(InfluxDB1RepositoryImpl.class);
+    private final InfluxDBWriteCounters writeCounters = new InfluxDBWriteCounters();
     private InfluxDBConfiguration configuration;
     @Nullable
     private InfluxDB client;
@@ -72,13 +79,33 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
                 configuration.getPassword());
         createdClient.setDatabase(configuration.getDatabaseName());
         createdClient.setRetentionPolicy(configuration.getRetentionPolicy());
-        createdClient.enableBatch(200, 100, TimeUnit.MILLISECONDS);
+        // the client blocks writes while its queue of batchSize points is full, failed batches are kept for retries
+        // until maxBufferedPoints are buffered
+        BatchOptions batchOptions = BatchOptions.DEFAULTS
+                .actions(configuration.getBatchSize() > 0 ? configuration.getBatchSize() : DEFAULT_BATCH_SIZE)
+                .flushDuration(configuration.getFlushInterval() > 0 ? configuration.getFlushInterval()
+                        : DEFAULT_FLUSH_INTERVAL)
+                .exceptionHandler(this::handleFailedPoints);
+        if (configuration.getMaxBufferedPoints() > 0) {
+            batchOptions = batchOptions.bufferLimit(configuration.getMaxBufferedPoints());
+        }
+        createdClient.enableBatch(batchOptions);
+        if (configuration.isGzip()) {
+            createdClient.enableGzip();
+        }
         this.client = createdClient;
         return checkConnectionStatus();
     }
 
     @Override
     public void disconnect() {
+        final InfluxDB currentClient = this.client;
+        if (currentClient != null) {
+            // writes the queued points
+            currentClient.close();
+            // the client only reports failed points, all other points have been written by now
+            writeCounters.countPendingAsWritten();
+        }
         this.client = null;
     }
 
@@ -114,12 +141,22 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
         logger.warn("database error: {}", e.getMessage(), e);
     }
 
+    private void handleFailedPoints(Iterable<Point> points, Throwable e) {
+        long count = 0;
+        for (Iterator<Point> iterator = points.iterator(); iterator.hasNext(); iterator.next()) {
+            count++;
+        }
+        writeCounters.addDropped(count);
+        logger.warn("Dropped {} points which could not be written: {}", count, e.getMessage());
+    }
+
     @Override
     public void write(InfluxPoint point) {
         final InfluxDB currentClient = this.client;
         if (currentClient != null) {
             Point clientPoint = convertPointToClientFormat(point);
             currentClient.write(configuration.getDatabaseName(), configuration.getRetentionPolicy(), clientPoint);
+            writeCounters.addSubmitted(1);
         } else {
             logger.warn("Write point {} ignored due to client isn't connected", point);
         }
@@ -220,4 +257,9 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
     public Map<String, Integer> getStoredItemsCount() {
         return Collections.emptyMap();
     }
+
+    @Override
+    public InfluxDBWriteCounters getWriteCounters() {
+        return writeCounters;
+    }
 }
@@ -27,6 +27,7 @@ import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBConstants;
 import org.openhab.persistence.influxdb.internal.InfluxDBRepository;
+import org.openhab.persistence.influxdb.internal.InfluxDBWriteCounters;
 import org.openhab.persistence.influxdb.internal.InfluxPoint;
 import org.openhab.persistence.influxdb.internal.InfluxRow;
 import org.openhab.persistence.influxdb.internal.UnnexpectedConditionException;
@@ -38,9 +39,14 @@ import com.influxdb.client.InfluxDBClientFactory;
 import com.influxdb.client.InfluxDBClientOptions;
 import com.influxdb.client.QueryApi;
 import com.influxdb.client.WriteApi;
+import com.influxdb.client.WriteOptions;
 import com.influxdb.client.domain.Ready;
 import com.influxdb.client.domain.WritePrecision;
 import com.influxdb.client.write.Point;
+import com.influxdb.client.write.events.BackpressureEvent;
+import com.influxdb.client.write.events.WriteErrorEvent;
+import com.influxdb.client.write.events.WriteRetriableErrorEvent;
+import com.influxdb.client.write.events.WriteSuccessEvent;
 import com.influxdb.query.FluxTable;
 
 /**
@@ -51,6 +57,7 @@ import com.influxdb.query.FluxTable;
 @NonNullByDefault
 public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
     private final Logger logger = LoggerFactory.getLogger(InfluxDB2RepositoryImpl.class);
+    private final InfluxDBWriteCounters writeCounters = new InfluxDBWriteCounters();
     private InfluxDBConfiguration configuration;
     @Nullable
     private InfluxDBClient client;
@@ -91,13 +98,47 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
         InfluxDBClientOptions clientOptions = optionsBuilder.build();
 
         final InfluxDBClient createdClient = InfluxDBClientFactory.create(clientOptions);
+        if (configuration.isGzip()) {
+            createdClient.enableGzip();
+        }
         this.client = createdClient;
         logger.debug("Succesfully connected to InfluxDB. Instance ready={}", createdClient.ready());
         queryAPI = createdClient.getQueryApi();
-        writeAPI = createdClient.getWriteApi();
+        writeAPI = createWriteApi(createdClient);
         return checkConnectionStatus();
     }
 
+    private WriteApi createWriteApi(InfluxDBClient createdClient) {
+        // the client drops the oldest points once maxBufferedPoints are buffered
+        WriteOptions.Builder writeOptions = WriteOptions.builder();
+        if (configuration.getBatchSize() > 0) {
+            writeOptions.batchSize(configuration.getBatchSize());
+        }
+        if (configuration.getFlushInterval() > 0) {
+            writeOptions.flushInterval(configuration.getFlushInterval());
+        }
+        if (configuration.getMaxBufferedPoints() > 0) {
+            writeOptions.bufferLimit(configuration.getMaxBufferedPoints());
+        }
+        WriteApi createdWriteAPI = createdClient.getWriteApi(writeOptions.build());
+        createdWriteAPI.listenEvents(WriteSuccessEvent.class,
+                event -> writeCounters.addWritten(countLines(event.getLineProtocol())));
+        createdWriteAPI.listenEvents(WriteRetriableErrorEvent.class, event -> {
+            writeCounters.addRetried(1);
+            logger.debug("Write failed and will be retried: {}", event.getThrowable().getMessage());
+        });
+        // the points of a failed write are counted as dropped on disconnect, as the event does not tell their number
+        createdWriteAPI.listenEvents(WriteErrorEvent.class,
+                event -> logger.warn("Write failed, points are dropped: {}", event.getThrowable().getMessage()));
+        // every write of this repository passes a single point, which is dropped as a whole if the buffer is full
+        createdWriteAPI.listenEvents(BackpressureEvent.class, event -> writeCounters.addDropped(1));
+        return createdWriteAPI;
+    }
+
+    private static long countLines(@Nullable String lineProtocol) {
+        return lineProtocol == null || lineProtocol.isEmpty() ? 0 : lineProtocol.split("\n").length;
+    }
+
     /**
      * Disconnect from InfluxDB server
      */
@@ -105,7 +146,10 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
     public void disconnect() {
         final InfluxDBClient currentClient = this.client;
         if (currentClient != null) {
+            // writes the buffered points
             currentClient.close();
+            // points which have neither been written nor dropped until now were part of a failed write
+            writeCounters.countPendingAsDropped();
         }
         this.client = null;
     }
@@ -143,6 +187,7 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
         final WriteApi currentWriteAPI = writeAPI;
         if (currentWriteAPI != null) {
             currentWriteAPI.writePoint(convertPointToClientFormat(point));
+            writeCounters.addSubmitted(1);
         } else {
             logger.warn("Write point {} ignored due to writeAPI isn't present", point);
         }
@@ -203,6 +248,11 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
         });
     }
 
+    @Override
+    public InfluxDBWriteCounters getWriteCounters() {
+        return writeCounters;
+    }
+
     /**
      * Return all stored item names with it's count of stored points
      *
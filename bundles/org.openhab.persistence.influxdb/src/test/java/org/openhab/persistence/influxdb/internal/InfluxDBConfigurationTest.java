@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.openhab.persistence.influxdb.internal.InfluxDBConfiguration.*;
+
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the parsing of the write options of the {@link InfluxDBConfiguration}.
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class InfluxDBConfigurationTest {
+
+    private static InfluxDBConfiguration createConfiguration(String key, Object value) {
+        Map<String, Object> config = ConfigurationTestHelper.createValidConfigurationParameters();
+        config.put(key, value);
+        return new InfluxDBConfiguration(config);
+    }
+
+    @Test
+    public void writeOptionsDefaultToClientDefaults() {
+        InfluxDBConfiguration configuration = ConfigurationTestHelper.createValidConfiguration();
+        assertThat(configuration.getBatchSize(), is(0));
+        assertThat(configuration.getFlushInterval(), is(0));
+        assertThat(configuration.getMaxBufferedPoints(), is(0));
+        assertThat(configuration.isGzip(), is(false));
+    }
+
+    @Test
+    public void writeOptionsAreParsedFromStrings() {
+        Map<String, Object> config = ConfigurationTestHelper.createValidConfigurationParameters();
+        config.put(BATCH_SIZE_PARAM, "500");
+        config.put(FLUSH_INTERVAL_PARAM, " 2000 ");
+        config.put(MAX_BUFFERED_POINTS_PARAM, "50000");
+        config.put(GZIP_PARAM, "true");
+        InfluxDBConfiguration configuration = new InfluxDBConfiguration(config);
+
+        assertThat(configuration.getBatchSize(), is(500));
+        assertThat(configuration.getFlushInterval(), is(2000));
+        assertThat(configuration.getMaxBufferedPoints(), is(50000));
+        assertThat(configuration.isGzip(), is(true));
+    }
+
+    @Test
+    public void writeOptionsAreParsedFromNumbersAndBooleans() {
+        assertThat(createConfiguration(BATCH_SIZE_PARAM, 500).getBatchSize(), is(500));
+        assertThat(createConfiguration(FLUSH_INTERVAL_PARAM, 2000L).getFlushInterval(), is(2000));
+        assertThat(createConfiguration(MAX_BUFFERED_POINTS_PARAM, 50000).getMaxBufferedPoints(), is(50000));
+        assertThat(createConfiguration(GZIP_PARAM, Boolean.TRUE).isGzip(), is(true));
+    }
+
+    @Test
+    public void invalidWriteOptionsUseDefaults() {
+        assertThat(createConfiguration(BATCH_SIZE_PARAM, "many").getBatchSize(), is(0));
+        assertThat(createConfiguration(FLUSH_INTERVAL_PARAM, "").getFlushInterval(), is(0));
+        assertThat(createConfiguration(MAX_BUFFERED_POINTS_PARAM, -10).getMaxBufferedPoints(), is(0));
+        assertThat(createConfiguration(GZIP_PARAM, "yes").isGzip(), is(false));
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link InfluxDBWriteCounters}.
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class InfluxDBWriteCountersTest {
+
+    private final InfluxDBWriteCounters counters = new InfluxDBWriteCounters();
+
+    @Test
+    public void pendingPointsAreSubmittedPointsWhichAreNeitherWrittenNorDropped() {
+        counters.addSubmitted(10);
+        counters.addWritten(6);
+        counters.addDropped(1);
+        assertThat(counters.getPending(), is(3L));
+    }
+
+    @Test
+    public void pendingPointsAreCountedAsDroppedForV2() {
+        counters.addSubmitted(10);
+        counters.addWritten(6);
+        counters.addDropped(1);
+
+        // submitted - written - dropped
+        assertThat(counters.countPendingAsDropped(), is(3L));
+        assertThat(counters.getDropped(), is(4L));
+        assertThat(counters.getWritten(), is(6L));
+        assertThat(counters.getPending(), is(0L));
+
+        // nothing is counted twice
+        assertThat(counters.countPendingAsDropped(), is(0L));
+        assertThat(counters.getDropped(), is(4L));
+    }
+
+    @Test
+    public void pendingPointsAreCountedAsWrittenForV1() {
+        counters.addSubmitted(10);
+        counters.addDropped(2);
+
+        assertThat(counters.countPendingAsWritten(), is(8L));
+        assertThat(counters.getWritten(), is(8L));
+        assertThat(counters.getDropped(), is(2L));
+        assertThat(counters.getPending(), is(0L));
+    }
+
+    @Test
+    public void droppedPointsWhichWereNotSubmittedDoNotMakePendingNegative() {
+        // e.g. the buffer of the client drops points which have been retried
+        counters.addSubmitted(5);
+        counters.addWritten(5);
+        counters.addDropped(2);
+
+        assertThat(counters.getPending(), is(0L));
+        assertThat(counters.countPendingAsDropped(), is(0L));
+        assertThat(counters.getDropped(), is(2L));
+    }
+}
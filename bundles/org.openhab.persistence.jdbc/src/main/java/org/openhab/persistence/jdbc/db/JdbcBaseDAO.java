@@ -13,14 +13,20 @@
 package org.openhab.persistence.jdbc.db;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import javax.measure.Quantity;
@@ -83,6 +89,9 @@ public class JdbcBaseDAO {
     protected String sqlCreateItemTable;
     protected String sqlInsertItemValue;
 
+    // SQL texts resolved from the templates, keyed by operation, table and data type
+    private final Map<String, String> resolvedSql = new ConcurrentHashMap<>();
+
     /********
      * INIT *
      ********/
@@ -328,9 +337,10 @@ public class JdbcBaseDAO {
 
     public void doStoreItemValue(Item item, State itemState, ItemVO vo) {
         ItemVO storedVO = storeItemValueProvider(item, itemState, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
-                new String[] { "#tableName#", "#tablePrimaryValue#" },
-                new String[] { storedVO.getTableName(), sqlTypes.get("tablePrimaryValue") });
+        String sql = getResolvedSql("storeItemValue", storedVO,
+                () -> StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+                        new String[] { "#tableName#", "#tablePrimaryValue#" },
+                        new String[] { storedVO.getTableName(), sqlTypes.get("tablePrimaryValue") }));
         Object[] params = new Object[] { storedVO.getValue(), storedVO.getValue() };
         logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, storedVO.getValue());
         Yank.execute(sql, params);
@@ -338,19 +348,45 @@ public class JdbcBaseDAO {
 
     public void doStoreItemValue(Item item, State itemState, ItemVO vo, ZonedDateTime date) {
         ItemVO storedVO = storeItemValueProvider(item, itemState, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
-                new String[] { "#tableName#", "#tablePrimaryValue#" }, new String[] { storedVO.getTableName(), "?" });
+        String sql = getResolvedSql("storeItemValueWithDate", storedVO,
+                () -> StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+                        new String[] { "#tableName#", "#tablePrimaryValue#" },
+                        new String[] { storedVO.getTableName(), "?" }));
         java.sql.Timestamp timestamp = new java.sql.Timestamp(date.toInstant().toEpochMilli());
         Object[] params = new Object[] { storedVO.getValue(), timestamp, storedVO.getValue() };
         logger.debug("JDBC::doStoreItemValue sql={} timestamp={} value='{}'", sql, timestamp, storedVO.getValue());
         Yank.execute(sql, params);
     }
 
+    public ItemVO doPrepareItemValue(Item item, State itemState, ItemVO vo, ZonedDateTime date) {
+        ItemVO storedVO = storeItemValueProvider(item, itemState, vo);
+        storedVO.setTime(new java.sql.Timestamp(date.toInstant().toEpochMilli()));
+        return storedVO;
+    }
+
+    /**
+     * Stores a batch of prepared values, which all belong to the same item table, with a single JDBC batch.
+     *
+     * @param vol values prepared by {@link #doPrepareItemValue(Item, State, ItemVO, ZonedDateTime)}
+     * @return false if the batch could not be executed
+     */
+    public boolean doStoreItemValues(List<ItemVO> vol) {
+        if (vol.isEmpty()) {
+            return true;
+        }
+        ItemVO first = vol.get(0);
+        String sql = getResolvedSql("storeItemValues", first, () -> storeItemValuesProvider(first));
+        Object[][] params = vol.stream().map(this::storeItemValuesParams).toArray(Object[][]::new);
+        logger.debug("JDBC::doStoreItemValues sql={} rows={}", sql, params.length);
+        return Yank.executeBatch(sql, params) != null;
+    }
+
     public List<HistoricItem> doGetHistItemFilterQuery(Item item, FilterCriteria filter, int numberDecimalcount,
             String table, String name, ZoneId timeZone) {
         String sql = histItemFilterQueryProvider(filter, numberDecimalcount, table, name, timeZone);
-        logger.debug("JDBC::doGetHistItemFilterQuery sql={}", sql);
-        List<Object[]> m = Yank.queryObjectArrays(sql, null);
+        Object[] params = histItemFilterQueryParams(filter, timeZone).toArray();
+        logger.debug("JDBC::doGetHistItemFilterQuery sql={} params={}", sql, params);
+        List<Object[]> m = Yank.queryObjectArrays(sql, params);
         if (m == null) {
             logger.debug("JDBC::doGetHistItemFilterQuery Query failed. Returning an empty list.");
             return List.of();
@@ -362,10 +398,71 @@ public class JdbcBaseDAO {
                 .collect(Collectors.<HistoricItem> toList());
     }
 
+    /**
+     * Same as {@link #doGetHistItemFilterQuery(Item, FilterCriteria, int, String, String, ZoneId)}, but the rows are
+     * read page by page while iterating over the result. Each page is read by key with a separate query, which only
+     * reads the rows after the time of the last row of the previous page. Every iteration of the returned
+     * {@link Iterable} queries the database again. Filters which request a page already limit the result and are read
+     * at once.
+     *
+     * @param pageSize the maximum number of rows of a page
+     * @param onError called if reading a page fails, the result then ends before that page
+     */
+    public Iterable<HistoricItem> doGetHistItemFilterQueryCursor(Item item, FilterCriteria filter,
+            int numberDecimalcount, String table, String name, ZoneId timeZone, int pageSize, Runnable onError) {
+        if (filter.getPageSize() != Integer.MAX_VALUE) {
+            return doGetHistItemFilterQuery(item, filter, numberDecimalcount, table, name, timeZone);
+        }
+        boolean ascending = filter.getOrdering() == Ordering.ASCENDING;
+        FilterCriteria pageFilter = new FilterCriteria();
+        pageFilter.setItemName(filter.getItemName());
+        pageFilter.setBeginDate(filter.getBeginDate());
+        // the result does not include values which are stored while iterating
+        pageFilter.setEndDate(filter.getEndDate() != null ? filter.getEndDate() : ZonedDateTime.now().plusSeconds(1));
+        pageFilter.setOrdering(filter.getOrdering());
+        pageFilter.setOperator(filter.getOperator());
+        pageFilter.setState(filter.getState());
+        pageFilter.setPageSize(pageSize);
+        // the first page is read with the filter, the following pages replace its begin or end by the last time
+        String firstSql = histItemFilterQueryProvider(pageFilter, numberDecimalcount, table, name, timeZone);
+        Object[] firstParams = histItemFilterQueryParams(pageFilter, timeZone).toArray();
+        FilterCriteria nextFilter = new FilterCriteria();
+        nextFilter.setBeginDate(ascending ? pageFilter.getEndDate() : pageFilter.getBeginDate());
+        nextFilter.setEndDate(pageFilter.getEndDate());
+        nextFilter.setOrdering(pageFilter.getOrdering());
+        nextFilter.setPageSize(pageSize);
+        String nextSql = histItemFilterQueryProvider(nextFilter, numberDecimalcount, table, name, timeZone);
+        Object[] nextParams = histItemFilterQueryParams(nextFilter, timeZone).toArray();
+        // the begin date is the first parameter, the end date follows it
+        int keyIndex = ascending || nextFilter.getBeginDate() == null ? 0 : 1;
+        // we already retrieve the unit here once as it is a very costly operation
+        String itemName = item.getName();
+        Unit<? extends Quantity<?>> unit = item instanceof NumberItem ? ((NumberItem) item).getUnit() : null;
+        return new JdbcHistoricItemCursor(pageSize, lastTime -> {
+            String sql = firstSql;
+            Object[] params = firstParams;
+            if (lastTime != null) {
+                sql = nextSql;
+                params = nextParams.clone();
+                // the time as read from the database, so the next page starts exactly after the last row
+                params[keyIndex] = lastTime;
+            }
+            logger.debug("JDBC::doGetHistItemFilterQueryCursor sql={} params={}", sql, params);
+            List<Object[]> m = Yank.queryObjectArrays(sql, params);
+            if (m == null) {
+                logger.warn("JDBC::doGetHistItemFilterQueryCursor: Page of '{}' after {} failed, result is incomplete.",
+                        itemName, lastTime);
+                onError.run();
+            }
+            return m;
+        }, o -> new JdbcHistoricItem(itemName, objectAsState(item, unit, o[1]), objectAsDate(o[0])));
+    }
+
     public void doDeleteItemValues(FilterCriteria filter, String table, ZoneId timeZone) {
         String sql = histItemFilterDeleteProvider(filter, table, timeZone);
-        logger.debug("JDBC::doDeleteItemValues sql={}", sql);
-        Yank.execute(sql, null);
+        Object[] params = resolveTimeFilterParams(filter, timeZone).toArray();
+        logger.debug("JDBC::doDeleteItemValues sql={} params={}", sql, params);
+        Yank.execute(sql, params);
     }
 
     /*************
@@ -373,6 +470,10 @@ public class JdbcBaseDAO {
      *************/
     static final DateTimeFormatter JDBC_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    /*
+     * The query and delete providers only depend on the table and on which parts of the filter are set. The dates and
+     * the page are passed as parameters, so the driver gets identical SQL text and can reuse its prepared statements.
+     */
     protected String histItemFilterQueryProvider(FilterCriteria filter, int numberDecimalcount, String table,
             String simpleName, ZoneId timeZone) {
         logger.debug(
@@ -382,9 +483,9 @@ public class JdbcBaseDAO {
         String filterString = resolveTimeFilter(filter, timeZone);
         filterString += (filter.getOrdering() == Ordering.ASCENDING) ? " ORDER BY time ASC" : " ORDER BY time DESC";
         if (filter.getPageSize() != Integer.MAX_VALUE) {
-            filterString += " LIMIT " + filter.getPageNumber() * filter.getPageSize() + "," + filter.getPageSize();
+            filterString += " LIMIT ?,?";
         }
-        // SELECT time, ROUND(value,3) FROM number_item_0114 ORDER BY time DESC LIMIT 0,1
+        // SELECT time, ROUND(value,3) FROM number_item_0114 ORDER BY time DESC LIMIT ?,?
         // rounding HALF UP
         String queryString = "NUMBERITEM".equalsIgnoreCase(simpleName) && numberDecimalcount > -1
                 ? "SELECT time, ROUND(value," + numberDecimalcount + ") FROM " + table
@@ -396,6 +497,19 @@ public class JdbcBaseDAO {
         return queryString;
     }
 
+    /**
+     * Returns the parameters of the query returned by
+     * {@link #histItemFilterQueryProvider(FilterCriteria, int, String, String, ZoneId)}.
+     */
+    protected List<Object> histItemFilterQueryParams(FilterCriteria filter, ZoneId timeZone) {
+        List<Object> params = resolveTimeFilterParams(filter, timeZone);
+        if (filter.getPageSize() != Integer.MAX_VALUE) {
+            params.add(filter.getPageNumber() * filter.getPageSize());
+            params.add(filter.getPageSize());
+        }
+        return params;
+    }
+
     protected String histItemFilterDeleteProvider(FilterCriteria filter, String table, ZoneId timeZone) {
         logger.debug("JDBC::histItemFilterDeleteProvider filter = {}, table = {}", filter, table);
 
@@ -410,17 +524,40 @@ public class JdbcBaseDAO {
         String filterString = "";
         if (filter.getBeginDate() != null) {
             filterString += filterString.isEmpty() ? " WHERE" : " AND";
-            filterString += " TIME>'" + JDBC_DATE_FORMAT.format(filter.getBeginDate().withZoneSameInstant(timeZone))
-                    + "'";
+            filterString += " TIME>?";
         }
         if (filter.getEndDate() != null) {
             filterString += filterString.isEmpty() ? " WHERE" : " AND";
-            filterString += " TIME<'" + JDBC_DATE_FORMAT.format(filter.getEndDate().withZoneSameInstant(timeZone))
-                    + "'";
+            filterString += " TIME<?";
         }
         return filterString;
     }
 
+    /**
+     * Returns the parameters of the filter returned by {@link #resolveTimeFilter(FilterCriteria, ZoneId)}.
+     */
+    protected List<Object> resolveTimeFilterParams(FilterCriteria filter, ZoneId timeZone) {
+        List<Object> params = new ArrayList<>(4);
+        ZonedDateTime beginDate = filter.getBeginDate();
+        if (beginDate != null) {
+            params.add(timeFilterParam(beginDate, timeZone));
+        }
+        ZonedDateTime endDate = filter.getEndDate();
+        if (endDate != null) {
+            params.add(timeFilterParam(endDate, timeZone));
+        }
+        return params;
+    }
+
+    /**
+     * Returns the parameter which compares the time column with the given date. The date is converted to the local
+     * time of the database and truncated to seconds, the precision of the filter.
+     */
+    protected Object timeFilterParam(ZonedDateTime date, ZoneId timeZone) {
+        LocalDateTime localDate = date.withZoneSameInstant(timeZone).toLocalDateTime();
+        return Timestamp.valueOf(localDate.truncatedTo(ChronoUnit.SECONDS));
+    }
+
     private String updateItemTableNamesProvider(List<ItemVO> namesList) {
         logger.debug("JDBC::updateItemTableNamesProvider namesList.size = {}", namesList.size());
         String queryString = "";
@@ -432,6 +569,15 @@ public class JdbcBaseDAO {
         return queryString;
     }
 
+    protected String storeItemValuesProvider(ItemVO vo) {
+        return StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+                new String[] { "#tableName#", "#tablePrimaryValue#" }, new String[] { vo.getTableName(), "?" });
+    }
+
+    protected Object[] storeItemValuesParams(ItemVO vo) {
+        return new Object[] { vo.getTime(), vo.getValue(), vo.getValue() };
+    }
+
     protected ItemVO storeItemValueProvider(Item item, State itemState, ItemVO vo) {
         String itemType = getItemType(item);
 
@@ -528,6 +674,15 @@ public class JdbcBaseDAO {
     /*****************
      * H E L P E R S *
      *****************/
+    /**
+     * Returns the SQL text for the given operation and item table. The template is only resolved once per table instead
+     * of on every call. Only the text is kept, statements are still prepared by the connection for every call.
+     */
+    protected String getResolvedSql(String operation, ItemVO vo, Supplier<String> provider) {
+        return resolvedSql.computeIfAbsent(operation + ":" + vo.getTableName() + ":" + vo.getDbType(),
+                key -> provider.get());
+    }
+
     protected State objectAsState(Item item, @Nullable Unit<? extends Quantity<?>> unit, Object v) {
         logger.debug(
                 "JDBC::ItemResultHandler::handleResult getState value = '{}', unit = '{}', getClass = '{}', clazz = '{}'",
@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.db;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.persistence.HistoricItem;
+
+/**
+ * Lazily evaluated query result, which is read page by page while it is iterated. Every page is read with a separate
+ * query, so no database connection or transaction is held between two pages and an iteration which is stopped early
+ * does not keep any resources. Only one page is held in memory at a time.
+ *
+ * Pages are read by key instead of by offset: the query of the next page gets the time of the last row of the
+ * previous page and only reads the rows after it, so every page costs the same regardless of its position.
+ *
+ * Every iteration of the cursor starts with the first page and queries the database again.
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class JdbcHistoricItemCursor implements Iterable<HistoricItem> {
+    private final int pageSize;
+    private final Function<@Nullable Object, @Nullable List<Object[]>> pageQuery;
+    private final Function<Object[], HistoricItem> rowMapper;
+
+    /**
+     * Creates a cursor
+     *
+     * @param pageSize the maximum number of rows of a page
+     * @param pageQuery reads the rows following the given time of the last row of the previous page, which is null for
+     *            the first page. The time has to be the first column of a row. Returns null if the query failed.
+     * @param rowMapper maps a row to a {@link HistoricItem}
+     */
+    public JdbcHistoricItemCursor(int pageSize, Function<@Nullable Object, @Nullable List<Object[]>> pageQuery,
+            Function<Object[], HistoricItem> rowMapper) {
+        this.pageSize = pageSize;
+        this.pageQuery = pageQuery;
+        this.rowMapper = rowMapper;
+    }
+
+    @Override
+    public Iterator<HistoricItem> iterator() {
+        return new PageIterator();
+    }
+
+    private class PageIterator implements Iterator<HistoricItem> {
+        private List<Object[]> page = List.of();
+        private int index = 0;
+        private @Nullable Object lastTime = null;
+        private boolean lastPage = false;
+
+        @Override
+        public boolean hasNext() {
+            if (index < page.size()) {
+                return true;
+            }
+            if (lastPage) {
+                return false;
+            }
+            List<Object[]> nextPage = pageQuery.apply(lastTime);
+            if (nextPage == null) {
+                // the query failed, the failure has been reported by the query
+                page = List.of();
+                lastPage = true;
+            } else {
+                page = nextPage;
+                lastPage = nextPage.size() < pageSize;
+                if (!nextPage.isEmpty()) {
+                    lastTime = nextPage.get(nextPage.size() - 1)[0];
+                }
+            }
+            index = 0;
+            return !page.isEmpty();
+        }
+
+        @Override
+        public HistoricItem next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return rowMapper.apply(page.get(index++));
+        }
+    }
+}
@@ -48,7 +48,8 @@ public class JdbcMapper {
     protected int errCnt;
     protected boolean initialized = false;
     protected JdbcConfiguration conf = null;
-    protected final Map<String, String> sqlTables = new HashMap<>();
+    // Item name to table name index. It is never modified but replaced as a whole, so lookups do not need locking.
+    protected volatile Map<String, String> sqlTables = Map.of();
     private long afterAccessMin = 10000;
     private long afterAccessMax = 0;
     private static final String ITEM_NAME_PATTERN = "[^a-zA-Z_0-9\\-]";
@@ -166,6 +167,26 @@ public class JdbcMapper {
         return item;
     }
 
+    public @Nullable ItemVO prepareItemValue(Item item, State itemState, ZonedDateTime date) {
+        String tableName = getTable(item);
+        if (tableName == null) {
+            logger.error("JDBC::prepareItemValue: Unable to store item '{}'.", item.getName());
+            return null;
+        }
+        return conf.getDBDAO().doPrepareItemValue(item, itemState, new ItemVO(tableName, null), date);
+    }
+
+    public boolean storeItemValues(List<ItemVO> vol) {
+        logger.debug("JDBC::storeItemValues: table={} size={}", vol.get(0).getTableName(), vol.size());
+        long timerStart = System.currentTimeMillis();
+        boolean result = conf.getDBDAO().doStoreItemValues(vol);
+        logTime("storeItemValues", timerStart, System.currentTimeMillis());
+        if (result) {
+            errCnt = 0;
+        }
+        return result;
+    }
+
     public List<HistoricItem> getHistItemFilterQuery(FilterCriteria filter, int numberDecimalcount, String table,
             Item item) {
         logger.debug(
@@ -184,6 +205,17 @@ public class JdbcMapper {
         return null;
     }
 
+    public Iterable<HistoricItem> getHistItemFilterQueryCursor(FilterCriteria filter, int numberDecimalcount,
+            String table, Item item) {
+        logger.debug("JDBC::getHistItemFilterQueryCursor numberDecimalcount='{}' table='{}' itemName='{}'",
+                numberDecimalcount, table, item.getName());
+        Iterable<HistoricItem> result = conf.getDBDAO().doGetHistItemFilterQueryCursor(item, filter,
+                numberDecimalcount, table, item.getName(), timeZoneProvider.getTimeZone(), conf.getQueryPageSize(),
+                () -> errCnt++);
+        errCnt = 0;
+        return result;
+    }
+
     @SuppressWarnings("null")
     public boolean deleteItemValues(FilterCriteria filter, String table) {
         logger.debug("JDBC::deleteItemValues filter='{}' table='{}' itemName='{}'", (filter != null), table,
@@ -256,13 +288,31 @@ public class JdbcMapper {
         } else {
             // Reset the error counter
             errCnt = 0;
+            Map<String, String> tables = new HashMap<>();
             for (ItemsVO vo : getItemIDTableNames()) {
-                sqlTables.put(vo.getItemname(), getTableName(vo.getItemid(), vo.getItemname()));
+                tables.put(vo.getItemname(), getTableName(vo.getItemid(), vo.getItemname()));
             }
+            sqlTables = Map.copyOf(tables);
         }
     }
 
     protected String getTable(Item item) {
+        String tableName = sqlTables.get(item.getName());
+
+        // Table already exists - return the name
+        if (tableName != null) {
+            return tableName;
+        }
+        return createTable(item);
+    }
+
+    private synchronized void putSqlTable(String itemName, String tableName) {
+        Map<String, String> tables = new HashMap<>(sqlTables);
+        tables.put(itemName, tableName);
+        sqlTables = Map.copyOf(tables);
+    }
+
+    private synchronized String createTable(Item item) {
         int rowId = 0;
         ItemsVO isvo;
         ItemVO ivo;
@@ -270,7 +320,7 @@ public class JdbcMapper {
         String itemName = item.getName();
         String tableName = sqlTables.get(itemName);
 
-        // Table already exists - return the name
+        // Table has been created by another thread meanwhile
         if (tableName != null) {
             return tableName;
         }
@@ -302,7 +352,7 @@ public class JdbcMapper {
         ivo = createItemTable(ivo);
         logger.debug("JDBC::getTable: Table created for item '{}' with dataType {} in SQL database.", itemName,
                 dataType);
-        sqlTables.put(itemName, tableName);
+        putSqlTable(itemName, tableName);
 
         // Check if the new entry is in the table list
         // If it's not in the list, then there was an error and we need to do
@@ -325,13 +375,15 @@ public class JdbcMapper {
         }
 
         Map<Integer, String> tableIds = new HashMap<>();
+        Map<String, String> tables = new HashMap<>(sqlTables);
 
         //
         for (ItemsVO vo : getItemIDTableNames()) {
             String t = getTableName(vo.getItemid(), vo.getItemname());
-            sqlTables.put(vo.getItemname(), t);
+            tables.put(vo.getItemname(), t);
             tableIds.put(vo.getItemid(), t);
         }
+        sqlTables = Map.copyOf(tables);
 
         //
         List<ItemsVO> al = getItemTables();
@@ -66,6 +66,8 @@ public class JdbcPersistenceService extends JdbcMapper implements ModifiablePers
 
     private final ItemRegistry itemRegistry;
 
+    private @Nullable JdbcWriteQueue writeQueue;
+
     @Activate
     public JdbcPersistenceService(final @Reference ItemRegistry itemRegistry,
             final @Reference TimeZoneProvider timeZoneProvider) {
@@ -110,6 +112,7 @@ public class JdbcPersistenceService extends JdbcMapper implements ModifiablePers
     public void deactivate(final int reason) {
         logger.debug("JDBC::deactivate:  persistence bundle stopping. Disconnecting from database. reason={}", reason);
         // closeConnection();
+        stopWriteQueue();
         initialized = false;
     }
 
@@ -146,6 +149,11 @@ public class JdbcPersistenceService extends JdbcMapper implements ModifiablePers
             logger.debug("JDBC::store: ignore Item '{}' because it is UnDefType", item.getName());
             return;
         }
+        JdbcWriteQueue writeQueue = this.writeQueue;
+        if (writeQueue != null) {
+            writeQueue.add(item, state, date);
+            return;
+        }
         if (!checkDBAccessability()) {
             logger.warn(
                     "JDBC::store: No connection to database. Cannot persist state '{}' for item '{}'! Will retry connecting to database when error count:{} equals errReconnectThreshold:{}",
@@ -212,6 +220,11 @@ public class JdbcPersistenceService extends JdbcMapper implements ModifiablePers
             return List.of();
         }
 
+        if (conf.getQueryPageSize() > 0) {
+            // rows are read while the caller iterates over the result
+            return getHistItemFilterQueryCursor(filter, conf.getNumberDecimalcount(), table, item);
+        }
+
         long timerStart = System.currentTimeMillis();
         List<HistoricItem> items = getHistItemFilterQuery(filter, conf.getNumberDecimalcount(), table, item);
         if (logger.isDebugEnabled()) {
@@ -227,6 +240,7 @@ public class JdbcPersistenceService extends JdbcMapper implements ModifiablePers
     public void updateConfig(Map<Object, Object> configuration) {
         logger.debug("JDBC::updateConfig");
 
+        stopWriteQueue();
         conf = new JdbcConfiguration(configuration);
         if (conf.valid && checkDBAccessability()) {
             checkDBSchema();
@@ -235,10 +249,31 @@ public class JdbcPersistenceService extends JdbcMapper implements ModifiablePers
         } else {
             initialized = false;
         }
+        if (conf.valid && conf.getBatchSize() > 0) {
+            writeQueue = new JdbcWriteQueue(this, conf.getBatchSize(), conf.getBatchLingerTime(),
+                    conf.getBatchQueueSize());
+            logger.debug("JDBC::updateConfig: batched writes enabled, batchSize={} batchLingerTime={} ms",
+                    conf.getBatchSize(), conf.getBatchLingerTime());
+        }
 
         logger.debug("JDBC::updateConfig: configuration complete for service={}.", getId());
     }
 
+    private void stopWriteQueue() {
+        JdbcWriteQueue writeQueue = this.writeQueue;
+        if (writeQueue != null) {
+            this.writeQueue = null;
+            writeQueue.shutdown();
+        }
+    }
+
+    /**
+     * Returns the write queue if batched writes are enabled, e.g. to read its queue depth and flush latency.
+     */
+    public @Nullable JdbcWriteQueue getWriteQueue() {
+        return writeQueue;
+    }
+
     @Override
     public List<PersistenceStrategy> getDefaultStrategies() {
         return List.of(PersistenceStrategy.Globals.CHANGE);
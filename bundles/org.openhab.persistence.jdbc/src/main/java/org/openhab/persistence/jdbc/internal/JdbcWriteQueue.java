@@ -0,0 +1,234 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.internal;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.NamedThreadFactory;
+import org.openhab.core.items.Item;
+import org.openhab.core.types.State;
+import org.openhab.persistence.jdbc.dto.ItemVO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded write queue which decouples {@link JdbcPersistenceService#store(Item)} from the database.
+ *
+ * Values are queued together with their timestamp and written by a single writer thread, grouped by item table
+ * into JDBC batches. The queue is flushed when it holds {@code batchSize} values or after {@code batchLingerTime}
+ * milliseconds, whichever comes first. If the database is not reachable or a batch cannot be stored, values stay
+ * queued and the oldest values are dropped once {@code batchQueueSize} is exceeded.
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class JdbcWriteQueue {
+    private final Logger logger = LoggerFactory.getLogger(JdbcWriteQueue.class);
+
+    private final JdbcMapper mapper;
+    private final int batchSize;
+    private final int queueSize;
+
+    private final ConcurrentLinkedDeque<PendingValue> queue = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService writer = Executors
+            .newSingleThreadScheduledExecutor(new NamedThreadFactory("jdbc-writer"));
+
+    private volatile long lastFlushDuration = 0;
+    private volatile long lastFlushCount = 0;
+
+    public JdbcWriteQueue(JdbcMapper mapper, int batchSize, int lingerTime, int queueSize) {
+        this.mapper = mapper;
+        this.batchSize = batchSize;
+        this.queueSize = Math.max(queueSize, batchSize);
+        writer.scheduleWithFixedDelay(this::flush, lingerTime, lingerTime, TimeUnit.MILLISECONDS);
+    }
+
+    public void add(Item item, State state, @Nullable ZonedDateTime date) {
+        queue.addLast(new PendingValue(item, state, date != null ? date : ZonedDateTime.now()));
+        int depth = queueDepth.incrementAndGet();
+        if (depth > queueSize) {
+            depth = dropOldest();
+        }
+        if (depth >= batchSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                // the queue is being shut down, shutdown() writes the remaining values
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    /**
+     * Drops the oldest values until the queue does not exceed {@code batchQueueSize}.
+     *
+     * @return the queue depth
+     */
+    private int dropOldest() {
+        int depth = queueDepth.get();
+        while (depth > queueSize && queue.pollFirst() != null) {
+            depth = queueDepth.decrementAndGet();
+            if (droppedCount.incrementAndGet() % 1000 == 1) {
+                logger.warn("JDBC::add: Write queue is full ({} values), dropped {} values so far.", queueSize,
+                        droppedCount.get());
+            }
+        }
+        return depth;
+    }
+
+    /**
+     * Writes all pending values and stops the writer thread.
+     */
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("JDBC::shutdown: Writer did not finish within 10 seconds.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        logger.debug("JDBC::shutdown: {} values dropped, {} values left in queue.", droppedCount.get(),
+                queueDepth.get());
+    }
+
+    synchronized void flush() {
+        flushRequested.set(false);
+        if (queue.isEmpty()) {
+            return;
+        }
+        if (!mapper.checkDBAccessability()) {
+            logger.debug("JDBC::flush: No connection to database, keeping {} values queued.", queueDepth.get());
+            return;
+        }
+        try {
+            long timerStart = System.currentTimeMillis();
+            // only drain what is queued now, values added meanwhile are written by the next flush
+            int pending = queueDepth.get();
+            int count = 0;
+            while (count < pending && !queue.isEmpty()) {
+                int written = writeBatch();
+                if (written < 0) {
+                    // keep the remaining values for the next flush instead of failing for each batch
+                    break;
+                }
+                count += written;
+            }
+            lastFlushCount = count;
+            lastFlushDuration = System.currentTimeMillis() - timerStart;
+            logger.debug("JDBC::flush: Stored {} values in {} ms.", count, lastFlushDuration);
+        } catch (RuntimeException e) {
+            logger.warn("JDBC::flush: Failed to store values: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Writes up to {@code batchSize} values. Values of tables which could not be stored are put back to the head of the
+     * queue.
+     *
+     * @return the number of values written, or -1 if a table could not be stored
+     */
+    private int writeBatch() {
+        List<PendingValue> values = new ArrayList<>(batchSize);
+        PendingValue value;
+        while (values.size() < batchSize && (value = queue.pollFirst()) != null) {
+            queueDepth.decrementAndGet();
+            values.add(value);
+        }
+        List<PendingValue> failed = new ArrayList<>();
+        try {
+            Map<String, List<PendingValue>> tableValues = new LinkedHashMap<>();
+            Map<String, List<ItemVO>> tables = new LinkedHashMap<>();
+            for (PendingValue pending : values) {
+                ItemVO vo = mapper.prepareItemValue(pending.item, pending.state, pending.date);
+                if (vo != null) {
+                    tableValues.computeIfAbsent(vo.getTableName(), t -> new ArrayList<>()).add(pending);
+                    tables.computeIfAbsent(vo.getTableName(), t -> new ArrayList<>()).add(vo);
+                }
+            }
+            for (Map.Entry<String, List<ItemVO>> table : tables.entrySet()) {
+                if (!mapper.storeItemValues(table.getValue())) {
+                    logger.warn("JDBC::writeBatch: Unable to store {} values in table '{}', keeping them queued.",
+                            table.getValue().size(), table.getKey());
+                    failed.addAll(tableValues.getOrDefault(table.getKey(), List.of()));
+                }
+            }
+        } catch (RuntimeException e) {
+            // the batch is not lost, it is retried by the next flush
+            requeue(values);
+            throw e;
+        }
+        if (failed.isEmpty()) {
+            return values.size();
+        }
+        requeue(failed);
+        return -1;
+    }
+
+    /**
+     * Puts values back in their original order, in front of the values added meanwhile.
+     */
+    private void requeue(List<PendingValue> values) {
+        for (int i = values.size() - 1; i >= 0; i--) {
+            queue.addFirst(values.get(i));
+            queueDepth.incrementAndGet();
+        }
+        dropOldest();
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getLastFlushDuration() {
+        return lastFlushDuration;
+    }
+
+    public long getLastFlushCount() {
+        return lastFlushCount;
+    }
+
+    private static class PendingValue {
+        private final Item item;
+        private final State state;
+        private final ZonedDateTime date;
+
+        private PendingValue(Item item, State state, ZonedDateTime date) {
+            this.item = item;
+            this.state = state;
+            this.date = date;
+        }
+    }
+}
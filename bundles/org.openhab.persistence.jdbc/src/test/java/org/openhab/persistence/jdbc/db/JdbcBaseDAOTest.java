@@ -15,16 +15,20 @@ package org.openhab.persistence.jdbc.db;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.FilterCriteria.Ordering;
+import org.openhab.persistence.jdbc.dto.ItemVO;
 
 /**
  * Tests the {@link JdbcBaseDAO}.
@@ -67,9 +71,9 @@ public class JdbcBaseDAOTest {
         filter.setEndDate(parseDateTimeString("2022-01-15T15:01:44"));
 
         String sql = jdbcBaseDAO.histItemFilterQueryProvider(filter, 0, DB_TABLE_NAME, "TEST", UTC_ZONE_ID);
-        assertThat(sql, is("SELECT time, value FROM " + DB_TABLE_NAME + " WHERE TIME>'" //
-                + JdbcBaseDAO.JDBC_DATE_FORMAT.format(filter.getBeginDate()) + "'" //
-                + " AND TIME<'" + JdbcBaseDAO.JDBC_DATE_FORMAT.format(filter.getEndDate()) + "' ORDER BY time DESC"));
+        assertThat(sql, is("SELECT time, value FROM " + DB_TABLE_NAME + " WHERE TIME>? AND TIME<? ORDER BY time DESC"));
+        assertThat(jdbcBaseDAO.histItemFilterQueryParams(filter, UTC_ZONE_ID),
+                is(List.of(Timestamp.valueOf("2022-01-10 15:01:44"), Timestamp.valueOf("2022-01-15 15:01:44"))));
     }
 
     @Test
@@ -77,7 +81,8 @@ public class JdbcBaseDAOTest {
         filter.setPageSize(1);
 
         String sql = jdbcBaseDAO.histItemFilterQueryProvider(filter, 0, DB_TABLE_NAME, "TEST", UTC_ZONE_ID);
-        assertThat(sql, is("SELECT time, value FROM " + DB_TABLE_NAME + " ORDER BY time DESC LIMIT 0,1"));
+        assertThat(sql, is("SELECT time, value FROM " + DB_TABLE_NAME + " ORDER BY time DESC LIMIT ?,?"));
+        assertThat(jdbcBaseDAO.histItemFilterQueryParams(filter, UTC_ZONE_ID), is(List.of(0, 1)));
     }
 
     @Test
@@ -92,9 +97,7 @@ public class JdbcBaseDAOTest {
         filter.setEndDate(parseDateTimeString("2022-01-15T15:01:44"));
 
         String sql = jdbcBaseDAO.histItemFilterDeleteProvider(filter, DB_TABLE_NAME, UTC_ZONE_ID);
-        assertThat(sql, is("DELETE FROM " + DB_TABLE_NAME + " WHERE TIME>'" //
-                + JdbcBaseDAO.JDBC_DATE_FORMAT.format(filter.getBeginDate()) + "'" //
-                + " AND TIME<'" + JdbcBaseDAO.JDBC_DATE_FORMAT.format(filter.getEndDate()) + "'"));
+        assertThat(sql, is("DELETE FROM " + DB_TABLE_NAME + " WHERE TIME>? AND TIME<?"));
     }
 
     @Test
@@ -108,7 +111,9 @@ public class JdbcBaseDAOTest {
         filter.setBeginDate(parseDateTimeString("2022-01-10T15:01:44"));
 
         String sql = jdbcBaseDAO.resolveTimeFilter(filter, UTC_ZONE_ID);
-        assertThat(sql, is(" WHERE TIME>'" + JdbcBaseDAO.JDBC_DATE_FORMAT.format(filter.getBeginDate()) + "'"));
+        assertThat(sql, is(" WHERE TIME>?"));
+        assertThat(jdbcBaseDAO.resolveTimeFilterParams(filter, UTC_ZONE_ID),
+                is(List.of(Timestamp.valueOf("2022-01-10 15:01:44"))));
     }
 
     @Test
@@ -116,7 +121,9 @@ public class JdbcBaseDAOTest {
         filter.setEndDate(parseDateTimeString("2022-01-15T15:01:44"));
 
         String sql = jdbcBaseDAO.resolveTimeFilter(filter, UTC_ZONE_ID);
-        assertThat(sql, is(" WHERE TIME<'" + JdbcBaseDAO.JDBC_DATE_FORMAT.format(filter.getEndDate()) + "'"));
+        assertThat(sql, is(" WHERE TIME<?"));
+        assertThat(jdbcBaseDAO.resolveTimeFilterParams(filter, UTC_ZONE_ID),
+                is(List.of(Timestamp.valueOf("2022-01-15 15:01:44"))));
     }
 
     @Test
@@ -125,8 +132,38 @@ public class JdbcBaseDAOTest {
         filter.setEndDate(parseDateTimeString("2022-01-15T15:01:44"));
 
         String sql = jdbcBaseDAO.resolveTimeFilter(filter, UTC_ZONE_ID);
-        assertThat(sql, is(" WHERE TIME>'" + JdbcBaseDAO.JDBC_DATE_FORMAT.format(filter.getBeginDate()) + "'" //
-                + " AND TIME<'" + JdbcBaseDAO.JDBC_DATE_FORMAT.format(filter.getEndDate()) + "'"));
+        assertThat(sql, is(" WHERE TIME>? AND TIME<?"));
+        assertThat(jdbcBaseDAO.resolveTimeFilterParams(filter, UTC_ZONE_ID),
+                is(List.of(Timestamp.valueOf("2022-01-10 15:01:44"), Timestamp.valueOf("2022-01-15 15:01:44"))));
+    }
+
+    @Test
+    public void testResolveTimeFilterParamsAreConvertedToTimeZone() {
+        filter.setBeginDate(parseDateTimeString("2022-01-10T15:01:44").plusNanos(500000000));
+
+        assertThat(jdbcBaseDAO.resolveTimeFilterParams(filter, ZoneId.of("Europe/Berlin")),
+                is(List.of(Timestamp.valueOf("2022-01-10 16:01:44"))));
+    }
+
+    @Test
+    public void testStoreItemValuesProviderReturnsInsertQueryWithTimeParameter() {
+        ItemVO vo = new ItemVO(DB_TABLE_NAME, null);
+
+        String sql = jdbcBaseDAO.storeItemValuesProvider(vo);
+        assertThat(sql, is("INSERT INTO " + DB_TABLE_NAME
+                + " (TIME, VALUE) VALUES( ?, ? ) ON DUPLICATE KEY UPDATE VALUE= ?"));
+    }
+
+    @Test
+    public void testGetResolvedSqlResolvesTemplateOncePerTable() {
+        ItemVO vo = new ItemVO(DB_TABLE_NAME, null);
+        AtomicInteger calls = new AtomicInteger();
+
+        String first = jdbcBaseDAO.getResolvedSql("test", vo, () -> "SQL" + calls.incrementAndGet());
+        String second = jdbcBaseDAO.getResolvedSql("test", vo, () -> "SQL" + calls.incrementAndGet());
+        assertThat(first, is("SQL1"));
+        assertThat(second, is("SQL1"));
+        assertThat(calls.get(), is(1));
     }
 
     private ZonedDateTime parseDateTimeString(String dts) {
@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.db;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.persistence.HistoricItem;
+
+/**
+ * Tests the {@link JdbcHistoricItemCursor}.
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class JdbcHistoricItemCursorTest {
+
+    private final List<Object[]> rows = IntStream.range(0, 5).mapToObj(i -> new Object[] { i, "value" + i })
+            .collect(Collectors.toList());
+    private final List<@Nullable Object> keys = new ArrayList<>();
+
+    private @Nullable List<Object[]> page(@Nullable Object lastTime) {
+        keys.add(lastTime);
+        int from = lastTime == null ? 0 : (Integer) lastTime + 1;
+        return rows.subList(Math.min(from, rows.size()), Math.min(from + 2, rows.size()));
+    }
+
+    private HistoricItem map(Object[] row) {
+        HistoricItem item = mock(HistoricItem.class);
+        when(item.getName()).thenReturn((String) row[1]);
+        return item;
+    }
+
+    private JdbcHistoricItemCursor createCursor() {
+        return new JdbcHistoricItemCursor(2, this::page, this::map);
+    }
+
+    @Test
+    public void readsAllPagesAfterTheLastRowOfThePreviousPage() {
+        List<String> result = new ArrayList<>();
+        createCursor().forEach(item -> result.add(item.getName()));
+        assertThat(result, is(List.of("value0", "value1", "value2", "value3", "value4")));
+        // the third page is shorter than the page size, so there is no query for a fourth page
+        assertThat(keys, is(Arrays.asList(null, 1, 3)));
+    }
+
+    @Test
+    public void readsPagesOnlyWhenNeeded() {
+        Iterator<HistoricItem> iterator = createCursor().iterator();
+        assertThat(keys.size(), is(0));
+        iterator.next();
+        iterator.next();
+        assertThat(keys.size(), is(1));
+        iterator.next();
+        assertThat(keys.size(), is(2));
+    }
+
+    @Test
+    public void everyIterationQueriesAgain() {
+        JdbcHistoricItemCursor cursor = createCursor();
+        cursor.forEach(item -> {
+        });
+        cursor.forEach(item -> {
+        });
+        assertThat(keys, is(Arrays.asList(null, 1, 3, null, 1, 3)));
+    }
+
+    @Test
+    public void failedPageEndsResult() {
+        Iterator<HistoricItem> iterator = new JdbcHistoricItemCursor(2,
+                lastTime -> lastTime == null ? page(lastTime) : null, this::map).iterator();
+        assertThat(iterator.next().getName(), is("value0"));
+        assertThat(iterator.next().getName(), is("value1"));
+        assertThat(iterator.hasNext(), is(false));
+        assertThat(iterator.hasNext(), is(false));
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.library.items.StringItem;
+import org.openhab.core.library.types.StringType;
+import org.openhab.persistence.jdbc.dto.ItemVO;
+
+/**
+ * Tests the {@link JdbcWriteQueue}.
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class JdbcWriteQueueTest {
+
+    private final JdbcMapper mapper = mock(JdbcMapper.class);
+    private final StringItem item = new StringItem("Test");
+    private @NonNullByDefault({}) JdbcWriteQueue queue;
+
+    @BeforeEach
+    public void setup() {
+        when(mapper.checkDBAccessability()).thenReturn(true);
+        when(mapper.prepareItemValue(any(), any(), any())).thenAnswer(i -> new ItemVO("item0001", null));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        when(mapper.checkDBAccessability()).thenReturn(false);
+        queue.shutdown();
+    }
+
+    @Test
+    public void failedBatchIsKeptQueued() {
+        // neither the size nor the linger time triggers a flush, the test flushes explicitly
+        queue = new JdbcWriteQueue(mapper, 100, 3600000, 100);
+        when(mapper.storeItemValues(anyList())).thenReturn(false, true);
+        queue.add(item, new StringType("a"), null);
+        queue.add(item, new StringType("b"), null);
+
+        queue.flush();
+        assertEquals(2, queue.getQueueDepth());
+
+        queue.flush();
+        assertEquals(0, queue.getQueueDepth());
+        verify(mapper, times(2)).storeItemValues(argThat((List<ItemVO> vol) -> vol.size() == 2));
+    }
+
+    @Test
+    public void batchIsKeptQueuedIfPreparingFails() {
+        queue = new JdbcWriteQueue(mapper, 100, 3600000, 100);
+        when(mapper.prepareItemValue(any(), any(), any())).thenThrow(new IllegalStateException("no table"))
+                .thenAnswer(i -> new ItemVO("item0001", null));
+        when(mapper.storeItemValues(anyList())).thenReturn(true);
+        queue.add(item, new StringType("a"), null);
+        queue.add(item, new StringType("b"), null);
+
+        queue.flush();
+        assertEquals(2, queue.getQueueDepth());
+        verify(mapper, never()).storeItemValues(anyList());
+
+        queue.flush();
+        assertEquals(0, queue.getQueueDepth());
+        verify(mapper).storeItemValues(argThat((List<ItemVO> vol) -> vol.size() == 2));
+    }
+
+    @Test
+    public void oldestValuesAreDroppedWhenQueueIsFull() {
+        when(mapper.checkDBAccessability()).thenReturn(false);
+        queue = new JdbcWriteQueue(mapper, 2, 3600000, 3);
+        for (int i = 0; i < 5; i++) {
+            queue.add(item, new StringType(Integer.toString(i)), null);
+        }
+        assertEquals(3, queue.getQueueDepth());
+        assertEquals(2, queue.getDroppedCount());
+    }
+}
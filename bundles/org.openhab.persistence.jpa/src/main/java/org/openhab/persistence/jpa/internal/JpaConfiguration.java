@@ -32,6 +32,10 @@ public class JpaConfiguration {
     private static final String CFG_USERNAME = "user";
     private static final String CFG_PASSWORD = "password";
     private static final String CFG_SYNCMAPPING = "syncmappings";
+    private static final String CFG_BATCH_SIZE = "batchSize";
+    private static final String CFG_BATCH_INTERVAL = "batchInterval";
+    private static final String CFG_BATCH_QUEUE_SIZE = "batchQueueSize";
+    private static final String CFG_QUERY_PAGE_SIZE = "queryPageSize";
 
     public static boolean isInitialized = false;
 
@@ -40,6 +44,10 @@ public class JpaConfiguration {
     public final String dbUserName;
     public final String dbPassword;
     public final String dbSyncMapping;
+    public final int batchSize;
+    public final int batchInterval;
+    public final int batchQueueSize;
+    public final int queryPageSize;
 
     public JpaConfiguration(final Map<String, Object> properties) {
         logger.debug("Update config...");
@@ -77,7 +85,26 @@ public class JpaConfiguration {
         }
         dbSyncMapping = (String) properties.get(CFG_SYNCMAPPING);
 
+        batchSize = getIntProperty(properties, CFG_BATCH_SIZE, 0);
+        batchInterval = getIntProperty(properties, CFG_BATCH_INTERVAL, 1000);
+        batchQueueSize = getIntProperty(properties, CFG_BATCH_QUEUE_SIZE, 10000);
+        queryPageSize = getIntProperty(properties, CFG_QUERY_PAGE_SIZE, 0);
+
         isInitialized = true;
         logger.debug("Update config... done");
     }
+
+    private int getIntProperty(final Map<String, Object> properties, String key, int defaultValue) {
+        Object param = properties.get(key);
+        logger.debug("{}: {}", key, param);
+        if (param == null || param.toString().isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(param.toString().trim()));
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid value '{}' for {} in jpa.cfg, using {}", param, key, defaultValue);
+            return defaultValue;
+        }
+    }
 }
@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jpa.internal;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.TypedQuery;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.items.Item;
+import org.openhab.core.persistence.HistoricItem;
+import org.openhab.persistence.jpa.internal.model.JpaPersistentItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Result of a query which is read page by page while it is iterated, so only one page of {@link JpaPersistentItem}s
+ * is held in memory at a time.
+ *
+ * Each page is read by its own short lived {@link EntityManager} without a transaction, as the rows are only read.
+ * Only the first page is read at {@code firstResult}, the following pages continue after the timestamp and id of the
+ * last row read, so the database does not have to skip the rows of all previous pages.
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class JpaPagedHistoricItems implements Iterable<HistoricItem> {
+    private final Logger logger = LoggerFactory.getLogger(JpaPagedHistoricItems.class);
+
+    private final EntityManagerFactory emf;
+    private final String queryString;
+    private final Map<String, Object> parameters;
+    private final String sortOrder;
+    private final int firstResult;
+    private final int maxResults;
+    private final int pageSize;
+    private final Item item;
+
+    /**
+     * @param queryString query without ORDER BY clause selecting the items as {@code n}
+     * @param sortOrder {@code ASC} or {@code DESC}
+     */
+    public JpaPagedHistoricItems(EntityManagerFactory emf, String queryString, Map<String, Object> parameters,
+            String sortOrder, int firstResult, int maxResults, int pageSize, Item item) {
+        this.emf = emf;
+        this.queryString = queryString;
+        this.parameters = parameters;
+        this.sortOrder = sortOrder;
+        this.firstResult = firstResult;
+        this.maxResults = maxResults;
+        this.pageSize = pageSize;
+        this.item = item;
+    }
+
+    @Override
+    public Iterator<HistoricItem> iterator() {
+        return new PageIterator();
+    }
+
+    private class PageIterator implements Iterator<HistoricItem> {
+        private List<JpaPersistentItem> page = List.of();
+        private int index;
+        private int remaining = maxResults;
+        private @Nullable JpaPersistentItem lastRow;
+        private boolean lastPage;
+
+        @Override
+        public boolean hasNext() {
+            if (index < page.size()) {
+                return true;
+            }
+            if (lastPage) {
+                return false;
+            }
+            readNextPage();
+            return index < page.size();
+        }
+
+        @Override
+        public HistoricItem next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return JpaHistoricItem.fromPersistedItem(page.get(index++), item);
+        }
+
+        private void readNextPage() {
+            int size = Math.min(pageSize, remaining);
+            index = 0;
+            page = List.of();
+            if (size <= 0) {
+                lastPage = true;
+                return;
+            }
+
+            JpaPersistentItem lastRow = this.lastRow;
+            String pageQueryString = queryString;
+            Map<String, Object> pageParameters = parameters;
+            if (lastRow != null) {
+                String comparison = "ASC".equals(sortOrder) ? ">" : "<";
+                pageQueryString += " AND (n.timestamp " + comparison + " :lastTimestamp"
+                        + " OR (n.timestamp = :lastTimestamp AND n.id " + comparison + " :lastId))";
+                pageParameters = new HashMap<>(parameters);
+                pageParameters.put("lastTimestamp", Date.from(lastRow.getTimestamp().toInstant()));
+                pageParameters.put("lastId", lastRow.getId());
+            }
+            pageQueryString += " ORDER BY n.timestamp " + sortOrder + ", n.id " + sortOrder;
+
+            EntityManager em = emf.createEntityManager();
+            try {
+                TypedQuery<JpaPersistentItem> query = em.createQuery(pageQueryString, JpaPersistentItem.class);
+                pageParameters.forEach(query::setParameter);
+                if (lastRow == null) {
+                    query.setFirstResult(firstResult);
+                }
+                query.setMaxResults(size);
+                page = query.getResultList();
+                logger.debug("Read page of {} items", page.size());
+            } catch (Exception e) {
+                logger.error("Error on querying database!", e);
+                lastPage = true;
+                return;
+            } finally {
+                em.close();
+            }
+
+            if (!page.isEmpty()) {
+                this.lastRow = page.get(page.size() - 1);
+            }
+            remaining -= page.size();
+            lastPage = page.size() < size;
+        }
+    }
+}
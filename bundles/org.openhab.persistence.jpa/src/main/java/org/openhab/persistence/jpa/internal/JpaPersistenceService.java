@@ -23,7 +23,7 @@ import java.util.Set;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
-import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -52,6 +52,7 @@ import org.slf4j.LoggerFactory;
  * JPA based implementation of QueryablePersistenceService.
  *
  * @author Manfred Bergmann - Initial contribution
+ * @author Marty Phelan - Write-behind batching and paged queries
  */
 @NonNullByDefault
 @Component(service = { PersistenceService.class,
@@ -65,6 +66,8 @@ public class JpaPersistenceService implements QueryablePersistenceService {
 
     private @NonNullByDefault({}) JpaConfiguration config;
 
+    private @Nullable JpaWriteQueue writeQueue;
+
     @Activate
     public JpaPersistenceService(final @Reference ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
@@ -75,7 +78,7 @@ public class JpaPersistenceService implements QueryablePersistenceService {
      *
      * @return EntityManagerFactory
      */
-    protected @Nullable EntityManagerFactory getEntityManagerFactory() {
+    protected synchronized @Nullable EntityManagerFactory getEntityManagerFactory() {
         if (emf == null) {
             emf = newEntityManagerFactory();
         }
@@ -86,6 +89,10 @@ public class JpaPersistenceService implements QueryablePersistenceService {
     public void activate(BundleContext context, Map<String, Object> properties) {
         logger.debug("Activating jpa persistence service");
         config = new JpaConfiguration(properties);
+        if (config.batchSize > 0) {
+            writeQueue = new JpaWriteQueue(this::getEntityManagerFactory, config.batchSize,
+                    Math.max(1, config.batchInterval), config.batchQueueSize);
+        }
     }
 
     /**
@@ -94,6 +101,11 @@ public class JpaPersistenceService implements QueryablePersistenceService {
     @Deactivate
     public void deactivate() {
         logger.debug("Deactivating jpa persistence service");
+        JpaWriteQueue writeQueue = this.writeQueue;
+        this.writeQueue = null;
+        if (writeQueue != null) {
+            writeQueue.shutdown();
+        }
         closeEntityManagerFactory();
     }
 
@@ -142,6 +154,13 @@ public class JpaPersistenceService implements QueryablePersistenceService {
         pItem.setRealName(item.getName());
         pItem.setTimestamp(new Date());
 
+        JpaWriteQueue writeQueue = this.writeQueue;
+        if (writeQueue != null) {
+            writeQueue.add(pItem);
+            logger.debug("Queued item, {} items pending", writeQueue.getQueueSize());
+            return;
+        }
+
         EntityManager em = getEntityManagerFactory().createEntityManager();
         try {
             logger.debug("Persisting item...");
@@ -196,9 +215,24 @@ public class JpaPersistenceService implements QueryablePersistenceService {
             queryString += " AND n.timestamp <= :endDate";
             hasEndDate = true;
         }
-        queryString += " ORDER BY n.timestamp " + sortOrder;
+        logger.debug("The query: {} ORDER BY n.timestamp {}", queryString, sortOrder);
 
-        logger.debug("The query: {}", queryString);
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("itemName", item.getName());
+        if (hasBeginDate) {
+            parameters.put("beginDate", Date.from(filter.getBeginDate().toInstant()));
+        }
+        if (hasEndDate) {
+            parameters.put("endDate", Date.from(filter.getEndDate().toInstant()));
+        }
+        int firstResult = filter.getPageNumber() * filter.getPageSize();
+
+        EntityManagerFactory factory = getEntityManagerFactory();
+        if (config.queryPageSize > 0 && factory != null) {
+            // read lazily, one page at a time
+            return new JpaPagedHistoricItems(factory, queryString, parameters, sortOrder, firstResult,
+                    filter.getPageSize(), config.queryPageSize, item);
+        }
 
         EntityManager em = getEntityManagerFactory().createEntityManager();
         try {
@@ -206,21 +240,15 @@ public class JpaPersistenceService implements QueryablePersistenceService {
             em.getTransaction().begin();
 
             logger.debug("Creating query...");
-            Query query = em.createQuery(queryString);
-            query.setParameter("itemName", item.getName());
-            if (hasBeginDate) {
-                query.setParameter("beginDate", Date.from(filter.getBeginDate().toInstant()));
-            }
-            if (hasEndDate) {
-                query.setParameter("endDate", Date.from(filter.getEndDate().toInstant()));
-            }
-
-            query.setFirstResult(filter.getPageNumber() * filter.getPageSize());
+            TypedQuery<JpaPersistentItem> query = em.createQuery(queryString + " ORDER BY n.timestamp " + sortOrder,
+                    JpaPersistentItem.class);
+            parameters.forEach(query::setParameter);
+
+            query.setFirstResult(firstResult);
             query.setMaxResults(filter.getPageSize());
             logger.debug("Creating query...done");
 
             logger.debug("Retrieving result list...");
-            @SuppressWarnings("unchecked")
             List<JpaPersistentItem> result = query.getResultList();
             logger.debug("Retrieving result list...done");
 
@@ -0,0 +1,234 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jpa.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.NamedThreadFactory;
+import org.openhab.persistence.jpa.internal.model.JpaPersistentItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded write-behind queue for {@link JpaPersistentItem}s.
+ *
+ * Items are persisted by a single writer thread, in transactions of up to {@code batchSize} items. The queue is
+ * flushed when it holds {@code batchSize} items or after {@code batchInterval} milliseconds, whichever comes first.
+ * The writer thread reuses its {@link EntityManager} for all flushes. If the items cannot be persisted, they
+ * stay queued and the oldest items are dropped once {@code batchQueueSize} is exceeded.
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class JpaWriteQueue {
+    private final Logger logger = LoggerFactory.getLogger(JpaWriteQueue.class);
+
+    private final Supplier<@Nullable EntityManagerFactory> entityManagerFactory;
+    private final int batchSize;
+    private final int maxQueueSize;
+
+    private final ConcurrentLinkedDeque<JpaPersistentItem> queue = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger queueSize = new AtomicInteger();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService writer = Executors
+            .newSingleThreadScheduledExecutor(new NamedThreadFactory("jpa-writer"));
+
+    // only used by the writer thread
+    private @Nullable EntityManager em;
+
+    public JpaWriteQueue(Supplier<@Nullable EntityManagerFactory> entityManagerFactory, int batchSize,
+            int batchInterval, int maxQueueSize) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.batchSize = batchSize;
+        this.maxQueueSize = Math.max(maxQueueSize, batchSize);
+        writer.scheduleWithFixedDelay(this::flush, batchInterval, batchInterval, TimeUnit.MILLISECONDS);
+    }
+
+    public void add(JpaPersistentItem item) {
+        queue.addLast(item);
+        int size = queueSize.incrementAndGet();
+        if (size > maxQueueSize) {
+            size = dropOldest();
+        }
+        if (size >= batchSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                // the queue is being shut down, shutdown() persists the remaining items
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    /**
+     * Drops the oldest items until the queue does not exceed {@code batchQueueSize}.
+     *
+     * @return the queue size
+     */
+    private int dropOldest() {
+        int size = queueSize.get();
+        while (size > maxQueueSize && queue.pollFirst() != null) {
+            size = queueSize.decrementAndGet();
+            if (droppedCount.incrementAndGet() % 1000 == 1) {
+                logger.warn("Write queue is full ({} items), dropped {} items so far.", maxQueueSize,
+                        droppedCount.get());
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Persists all queued items and stops the writer thread.
+     */
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("Writer did not finish within 10 seconds.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        closeEntityManager();
+        logger.debug("Write queue closed, {} items dropped, {} items left in queue.", droppedCount.get(),
+                queueSize.get());
+    }
+
+    public int getQueueSize() {
+        return queueSize.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    synchronized void flush() {
+        flushRequested.set(false);
+        if (queue.isEmpty()) {
+            return;
+        }
+        EntityManager em = getEntityManager();
+        if (em == null) {
+            logger.debug("No EntityManagerFactory, keeping {} items queued", queueSize.get());
+            return;
+        }
+
+        // only drain what is queued now, items added meanwhile are persisted by the next flush
+        int pending = queueSize.get();
+        int count = 0;
+        long timerStart = System.currentTimeMillis();
+        while (count < pending && !queue.isEmpty()) {
+            int persisted = persistBatch(em, Math.min(batchSize, pending - count));
+            if (persisted < 0) {
+                // keep the remaining items for the next flush instead of failing for each batch
+                break;
+            }
+            count += persisted;
+        }
+        logger.debug("Persisted {} items in {} ms", count, System.currentTimeMillis() - timerStart);
+    }
+
+    /**
+     * Persists up to {@code size} items in one transaction. If the transaction fails, the items are put back to the
+     * head of the queue.
+     *
+     * @return the number of items persisted, or -1 if the transaction failed
+     */
+    private int persistBatch(EntityManager em, int size) {
+        List<JpaPersistentItem> items = new ArrayList<>(size);
+        JpaPersistentItem item;
+        while (items.size() < size && (item = queue.pollFirst()) != null) {
+            queueSize.decrementAndGet();
+            items.add(item);
+        }
+        if (items.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            em.getTransaction().begin();
+            for (JpaPersistentItem pItem : items) {
+                em.persist(pItem);
+            }
+            em.getTransaction().commit();
+            // the persisted items are not needed anymore
+            em.clear();
+            return items.size();
+        } catch (Exception e) {
+            logger.error("Error on persisting {} items! Rolling back and keeping them queued!", items.size(), e);
+            try {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+            } catch (RuntimeException re) {
+                logger.debug("Error rolling back transaction: {}", re.getMessage());
+            }
+            closeEntityManager();
+            requeue(items);
+            return -1;
+        }
+    }
+
+    /**
+     * Puts items which could not be persisted back in their original order, in front of the items added meanwhile.
+     */
+    private void requeue(List<JpaPersistentItem> items) {
+        for (int i = items.size() - 1; i >= 0; i--) {
+            JpaPersistentItem item = items.get(i);
+            // the id may have been assigned by the rolled back transaction
+            item.setId(null);
+            queue.addFirst(item);
+            queueSize.incrementAndGet();
+        }
+        dropOldest();
+    }
+
+    private @Nullable EntityManager getEntityManager() {
+        EntityManager em = this.em;
+        if (em == null || !em.isOpen()) {
+            EntityManagerFactory emf = entityManagerFactory.get();
+            em = emf != null ? emf.createEntityManager() : null;
+            this.em = em;
+        }
+        return em;
+    }
+
+    private void closeEntityManager() {
+        EntityManager em = this.em;
+        this.em = null;
+        if (em != null && em.isOpen()) {
+            try {
+                em.close();
+            } catch (RuntimeException e) {
+                logger.debug("Error closing EntityManager: {}", e.getMessage());
+            }
+        }
+    }
+}
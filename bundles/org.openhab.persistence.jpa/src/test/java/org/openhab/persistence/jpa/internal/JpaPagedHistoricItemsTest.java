@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jpa.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceException;
+import javax.persistence.TypedQuery;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.library.items.StringItem;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.persistence.HistoricItem;
+import org.openhab.persistence.jpa.internal.model.JpaPersistentItem;
+
+/**
+ * Tests the {@link JpaPagedHistoricItems}.
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class JpaPagedHistoricItemsTest {
+
+    private static final String QUERY = "SELECT n FROM JpaPersistentItem n WHERE n.realName = :itemName";
+
+    private final EntityManagerFactory emf = mock(EntityManagerFactory.class);
+    private final EntityManager em = mock(EntityManager.class);
+    @SuppressWarnings("unchecked")
+    private final TypedQuery<JpaPersistentItem> query = mock(TypedQuery.class);
+    private final StringItem item = new StringItem("Test");
+
+    @BeforeEach
+    public void setup() {
+        when(emf.createEntityManager()).thenReturn(em);
+        when(em.createQuery(anyString(), eq(JpaPersistentItem.class))).thenReturn(query);
+    }
+
+    private long nextId = 1;
+
+    private List<JpaPersistentItem> rows(String... values) {
+        List<JpaPersistentItem> rows = new ArrayList<>();
+        for (String value : values) {
+            JpaPersistentItem row = new JpaPersistentItem();
+            row.setId(nextId);
+            row.setName("Test");
+            row.setTimestamp(new Date(nextId++ * 1000));
+            row.setValue(value);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private List<HistoricItem> readAll(Iterable<HistoricItem> result) {
+        List<HistoricItem> items = new ArrayList<>();
+        result.forEach(items::add);
+        return items;
+    }
+
+    @Test
+    public void readsAllPages() {
+        when(query.getResultList()).thenReturn(rows("a", "b"), rows("c"));
+
+        List<HistoricItem> items = readAll(
+                new JpaPagedHistoricItems(emf, QUERY, Map.of("itemName", "Test"), "ASC", 0, 10, 2, item));
+
+        assertEquals(3, items.size());
+        assertEquals(new StringType("c"), items.get(2).getState());
+        verify(em).createQuery(QUERY + " ORDER BY n.timestamp ASC, n.id ASC", JpaPersistentItem.class);
+        verify(query).setFirstResult(0);
+        verify(query, times(2)).setMaxResults(2);
+        verify(query, times(2)).setParameter("itemName", "Test");
+        // the second page continues after the last row of the first page instead of skipping the first page
+        verify(em).createQuery(QUERY + " AND (n.timestamp > :lastTimestamp"
+                + " OR (n.timestamp = :lastTimestamp AND n.id > :lastId)) ORDER BY n.timestamp ASC, n.id ASC",
+                JpaPersistentItem.class);
+        verify(query).setParameter("lastTimestamp", new Date(2000));
+        verify(query).setParameter("lastId", 2L);
+        // the second page is shorter than the page size, so there is no query for a third page
+        verify(query, times(2)).getResultList();
+        verify(em, times(2)).close();
+    }
+
+    @Test
+    public void descendingPagesContinueBeforeLastRow() {
+        when(query.getResultList()).thenReturn(rows("a", "b"), rows());
+
+        readAll(new JpaPagedHistoricItems(emf, QUERY, Map.of(), "DESC", 0, 10, 2, item));
+
+        verify(em).createQuery(QUERY + " AND (n.timestamp < :lastTimestamp"
+                + " OR (n.timestamp = :lastTimestamp AND n.id < :lastId)) ORDER BY n.timestamp DESC, n.id DESC",
+                JpaPersistentItem.class);
+    }
+
+    @Test
+    public void readsPagesOnlyWhenNeeded() {
+        when(query.getResultList()).thenReturn(rows("a", "b"), rows("c", "d"));
+
+        Iterator<HistoricItem> iterator = new JpaPagedHistoricItems(emf, QUERY, Map.of(), "ASC", 0, 10, 2, item)
+                .iterator();
+        verifyNoInteractions(emf);
+        iterator.next();
+        iterator.next();
+        verify(query, times(1)).getResultList();
+        iterator.next();
+        verify(query, times(2)).getResultList();
+    }
+
+    @Test
+    public void limitsLastPageToMaxResults() {
+        when(query.getResultList()).thenReturn(rows("a", "b"), rows("c"));
+
+        List<HistoricItem> items = readAll(new JpaPagedHistoricItems(emf, QUERY, Map.of(), "ASC", 4, 3, 2, item));
+
+        assertEquals(3, items.size());
+        // only the first page is read at an offset
+        verify(query).setFirstResult(4);
+        verify(query).setMaxResults(1);
+    }
+
+    @Test
+    public void failedPageEndsResult() {
+        when(query.getResultList()).thenReturn(rows("a", "b")).thenThrow(new PersistenceException("failed"));
+
+        List<HistoricItem> items = readAll(new JpaPagedHistoricItems(emf, QUERY, Map.of(), "ASC", 0, 10, 2, item));
+
+        assertEquals(2, items.size());
+        verify(em, times(2)).close();
+    }
+}
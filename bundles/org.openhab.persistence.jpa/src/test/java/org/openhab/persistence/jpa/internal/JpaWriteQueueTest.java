@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jpa.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.PersistenceException;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.persistence.jpa.internal.model.JpaPersistentItem;
+
+/**
+ * Tests the {@link JpaWriteQueue}.
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class JpaWriteQueueTest {
+
+    private final EntityManagerFactory emf = mock(EntityManagerFactory.class);
+    private final EntityManager em = mock(EntityManager.class);
+    private final EntityTransaction transaction = mock(EntityTransaction.class);
+    private @Nullable EntityManagerFactory factory = emf;
+    private @NonNullByDefault({}) JpaWriteQueue queue;
+
+    @BeforeEach
+    public void setup() {
+        when(emf.createEntityManager()).thenReturn(em);
+        when(em.isOpen()).thenReturn(true);
+        when(em.getTransaction()).thenReturn(transaction);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        factory = null;
+        queue.shutdown();
+    }
+
+    private JpaPersistentItem newItem(long id) {
+        JpaPersistentItem item = new JpaPersistentItem();
+        item.setName("Test");
+        item.setValue(Long.toString(id));
+        item.setId(id);
+        return item;
+    }
+
+    @Test
+    public void failedTransactionKeepsItemsQueued() {
+        // neither the size nor the interval triggers a flush, the test flushes explicitly
+        queue = new JpaWriteQueue(() -> factory, 100, 3600000, 100);
+        doThrow(new PersistenceException("failed")).doNothing().when(transaction).commit();
+        when(transaction.isActive()).thenReturn(true);
+        JpaPersistentItem first = newItem(1);
+        JpaPersistentItem second = newItem(2);
+        queue.add(first);
+        queue.add(second);
+
+        queue.flush();
+        assertEquals(2, queue.getQueueSize());
+        verify(transaction).rollback();
+        // the ids assigned by the rolled back transaction are not reused
+        assertNull(first.getId());
+        assertNull(second.getId());
+
+        queue.flush();
+        assertEquals(0, queue.getQueueSize());
+        verify(em, times(2)).persist(first);
+        verify(em, times(2)).persist(second);
+    }
+
+    /**
+     * Creates a queue whose writer thread cannot persist items, as the flushes triggered by the batch size would race
+     * with the test.
+     */
+    private JpaWriteQueue newQueueFlushedByTest(int batchSize) {
+        Thread testThread = Thread.currentThread();
+        return new JpaWriteQueue(() -> Thread.currentThread() == testThread ? factory : null, batchSize, 3600000,
+                100);
+    }
+
+    @Test
+    public void flushCommitsOneTransactionPerBatch() {
+        queue = newQueueFlushedByTest(2);
+        for (int i = 0; i < 5; i++) {
+            queue.add(newItem(i));
+        }
+
+        queue.flush();
+        assertEquals(0, queue.getQueueSize());
+        verify(em, times(5)).persist(any());
+        verify(transaction, times(3)).commit();
+    }
+
+    @Test
+    public void failedBatchKeepsRemainingItemsQueued() {
+        queue = newQueueFlushedByTest(2);
+        for (int i = 0; i < 5; i++) {
+            queue.add(newItem(i));
+        }
+        doNothing().doThrow(new PersistenceException("failed")).when(transaction).commit();
+        when(transaction.isActive()).thenReturn(true);
+
+        queue.flush();
+        // the first batch is persisted, the failed second batch and the third batch stay queued
+        assertEquals(3, queue.getQueueSize());
+        verify(transaction, times(2)).commit();
+        verify(transaction).rollback();
+    }
+
+    @Test
+    public void itemsStayQueuedWithoutEntityManagerFactory() {
+        factory = null;
+        queue = new JpaWriteQueue(() -> factory, 100, 3600000, 100);
+        queue.add(newItem(1));
+
+        queue.flush();
+        assertEquals(1, queue.getQueueSize());
+        verifyNoInteractions(emf);
+    }
+
+    @Test
+    public void oldestItemsAreDroppedWhenQueueIsFull() {
+        factory = null;
+        queue = new JpaWriteQueue(() -> factory, 2, 3600000, 3);
+        for (int i = 0; i < 5; i++) {
+            queue.add(newItem(i));
+        }
+        assertEquals(3, queue.getQueueSize());
+        assertEquals(2, queue.getDroppedCount());
+    }
+}
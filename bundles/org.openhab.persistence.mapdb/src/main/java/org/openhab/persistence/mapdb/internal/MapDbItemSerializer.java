@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.library.types.DateTimeType;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.HSBType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.OpenClosedType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.PlayPauseType;
+import org.openhab.core.library.types.PointType;
+import org.openhab.core.library.types.QuantityType;
+import org.openhab.core.library.types.RawType;
+import org.openhab.core.library.types.RewindFastforwardType;
+import org.openhab.core.library.types.StringListType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.library.types.UpDownType;
+import org.openhab.core.types.State;
+import org.openhab.core.types.TypeParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compact binary format for {@link MapDbItem}s.
+ *
+ * An item is written as format version, timestamp, state type and the full string of the state. The common state
+ * types are written as a single byte, the other supported types by their class name. Only the known state types are
+ * read, a class name which is not one of them is rejected. The item name is not written, as it is the key of the
+ * entry.
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class MapDbItemSerializer {
+    private static final byte FORMAT_VERSION = 1;
+    private static final byte TYPE_BY_NAME = 0;
+
+    // the position in this list is stored in the database, so new types must only be appended
+    private static final List<Class<? extends State>> STATE_TYPES = List.of(DecimalType.class, QuantityType.class,
+            OnOffType.class, OpenClosedType.class, PercentType.class, HSBType.class, StringType.class,
+            DateTimeType.class, UpDownType.class, PlayPauseType.class, RewindFastforwardType.class, PointType.class);
+    // less common types, which are written with their class name
+    private static final Map<String, Class<? extends State>> STATE_TYPES_BY_NAME = Stream
+            .of(RawType.class, StringListType.class).collect(Collectors.toMap(Class::getName, Function.identity()));
+
+    private final Logger logger = LoggerFactory.getLogger(MapDbItemSerializer.class);
+
+    /**
+     * Serializes an item
+     *
+     * @throws IllegalArgumentException if the state of the item is not of a supported type
+     */
+    public byte[] serialize(MapDbItem item) {
+        State state = item.getState();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(item.getTimestamp().toInstant().toEpochMilli());
+            int type = STATE_TYPES.indexOf(state.getClass());
+            if (type == -1) {
+                if (!STATE_TYPES_BY_NAME.containsKey(state.getClass().getName())) {
+                    throw new IllegalArgumentException("Unsupported state type " + state.getClass().getName());
+                }
+                out.writeByte(TYPE_BY_NAME);
+                out.writeUTF(state.getClass().getName());
+            } else {
+                out.writeByte(type + 1);
+            }
+            // not using writeUTF, as it is limited to 64 kB
+            byte[] value = state.toFullString().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(value.length);
+            out.write(value);
+        } catch (IOException e) {
+            // not thrown by a ByteArrayOutputStream
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public @Nullable MapDbItem deserialize(String name, byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                logger.warn("Couldn't deserialize '{}': unknown format version {}", name, version);
+                return null;
+            }
+            long timestamp = in.readLong();
+            int type = in.readByte();
+            Class<? extends State> stateType = type == TYPE_BY_NAME ? forName(in.readUTF())
+                    : STATE_TYPES.get(type - 1);
+            byte[] value = new byte[in.readInt()];
+            in.readFully(value);
+            State state = TypeParser.parseState(List.of(stateType), new String(value, StandardCharsets.UTF_8));
+            if (state == null) {
+                logger.warn("Couldn't deserialize state of '{}' as {}", name, stateType.getSimpleName());
+                return null;
+            }
+
+            MapDbItem item = new MapDbItem();
+            item.setName(name);
+            item.setState(state);
+            item.setTimestamp(new Date(timestamp));
+            return item;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Couldn't deserialize '{}': {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    private static Class<? extends State> forName(String className) {
+        Class<? extends State> stateType = STATE_TYPES_BY_NAME.get(className);
+        if (stateType == null) {
+            throw new IllegalArgumentException("Unsupported state type " + className);
+        }
+        return stateType;
+    }
+}
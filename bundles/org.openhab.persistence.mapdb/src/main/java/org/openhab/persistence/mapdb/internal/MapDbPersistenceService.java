@@ -24,7 +24,11 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -34,6 +38,7 @@ import org.mapdb.DB;
 import org.mapdb.DBMaker;
 import org.openhab.core.OpenHAB;
 import org.openhab.core.common.ThreadPoolManager;
+import org.openhab.core.config.core.ConfigurableService;
 import org.openhab.core.items.Item;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.HistoricItem;
@@ -43,8 +48,10 @@ import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.State;
 import org.openhab.core.types.UnDefType;
+import org.osgi.framework.Constants;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
 import org.osgi.service.component.annotations.Deactivate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,35 +63,63 @@ import com.google.gson.GsonBuilder;
  * This is the implementation of the MapDB {@link PersistenceService}. To learn more about MapDB please visit their
  * <a href="http://www.mapdb.org/">website</a>.
  *
+ * By default, every store is followed by a commit, where stores made while a commit is pending share that commit.
+ * With {@code commitInterval} (milliseconds) set, changes are committed at most once per interval, or as soon as
+ * {@code commitSize} changes are pending if that is set as well.
+ *
  * @author Jens Viebig - Initial contribution
  * @author Martin Kühl - Port to 3.x
+ * @author Marty Phelan - group commit and binary serialization
  */
 @NonNullByDefault
-@Component(service = { PersistenceService.class, QueryablePersistenceService.class })
+@Component(service = { PersistenceService.class,
+        QueryablePersistenceService.class }, configurationPid = "org.openhab.mapdb", //
+        configurationPolicy = ConfigurationPolicy.OPTIONAL, property = Constants.SERVICE_PID + "=org.openhab.mapdb")
+@ConfigurableService(category = "persistence", label = "MapDB Persistence Service", //
+        description_uri = MapDbPersistenceService.CONFIG_URI)
 public class MapDbPersistenceService implements QueryablePersistenceService {
 
+    protected static final String CONFIG_URI = "persistence:mapdb";
     private static final String SERVICE_ID = "mapdb";
     private static final String SERVICE_LABEL = "MapDB";
     private static final Path DB_DIR = new File(OpenHAB.getUserDataFolder(), "persistence").toPath().resolve("mapdb");
     private static final Path BACKUP_DIR = DB_DIR.resolve("backup");
     private static final String DB_FILE_NAME = "storage.mapdb";
+    private static final String CONFIG_COMMIT_INTERVAL = "commitInterval";
+    private static final String CONFIG_COMMIT_SIZE = "commitSize";
 
     private final Logger logger = LoggerFactory.getLogger(MapDbPersistenceService.class);
 
-    private final ExecutorService threadPool = ThreadPoolManager.getPool(getClass().getSimpleName());
+    private final ScheduledExecutorService scheduler = ThreadPoolManager
+            .getScheduledPool(getClass().getSimpleName());
 
     /** holds the local instance of the MapDB database */
 
     private @NonNullByDefault({}) DB db;
-    private @NonNullByDefault({}) Map<String, String> map;
+    // values are stored as byte[], values written by older versions are JSON strings
+    private @NonNullByDefault({}) Map<String, Object> map;
 
     private transient Gson mapper = new GsonBuilder().registerTypeHierarchyAdapter(State.class, new StateTypeAdapter())
             .create();
+    private final MapDbItemSerializer serializer = new MapDbItemSerializer();
+
+    private final AtomicInteger pendingWrites = new AtomicInteger();
+    private final AtomicBoolean commitScheduled = new AtomicBoolean();
+    private int commitSize = 0;
+    private @Nullable ScheduledFuture<?> commitJob;
 
     @Activate
-    public void activate() {
+    public void activate(final Map<String, Object> config) {
         logger.debug("MapDB persistence service is being activated");
 
+        long commitInterval = getConfigValue(config, CONFIG_COMMIT_INTERVAL);
+        commitSize = (int) getConfigValue(config, CONFIG_COMMIT_SIZE);
+        if (commitInterval > 0) {
+            commitJob = scheduler.scheduleWithFixedDelay(this::commitPending, commitInterval, commitInterval,
+                    TimeUnit.MILLISECONDS);
+            logger.debug("MapDB group commit enabled, commitInterval={} ms commitSize={}", commitInterval, commitSize);
+        }
+
         try {
             Files.createDirectories(DB_DIR);
         } catch (IOException e) {
@@ -141,11 +176,31 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
     @Deactivate
     public void deactivate() {
         logger.debug("MapDB persistence service deactivated");
+        ScheduledFuture<?> commitJob = this.commitJob;
+        if (commitJob != null) {
+            commitJob.cancel(false);
+            this.commitJob = null;
+        }
         if (db != null) {
+            // write pending changes, close() would roll them back
+            commitPending();
             db.close();
         }
     }
 
+    private long getConfigValue(Map<String, Object> config, String key) {
+        Object value = config.get(key);
+        if (value == null || value.toString().isBlank()) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.toString().trim()));
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring illegal configuration: {} = {}", key, value);
+            return 0;
+        }
+    }
+
     @Override
     public String getId() {
         return SERVICE_ID;
@@ -158,7 +213,8 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
 
     @Override
     public Set<PersistenceItemInfo> getItemInfo() {
-        return map.values().stream().map(this::deserialize).flatMap(MapDbPersistenceService::streamOptional)
+        return map.entrySet().stream().map(entry -> deserialize(entry.getKey(), entry.getValue()))
+                .flatMap(MapDbPersistenceService::streamOptional)
                 .collect(Collectors.<PersistenceItemInfo> toUnmodifiableSet());
     }
 
@@ -182,26 +238,42 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
         mItem.setName(localAlias);
         mItem.setState(state);
         mItem.setTimestamp(new Date());
-        String json = serialize(mItem);
-        map.put(localAlias, json);
-        commit();
-        if (logger.isDebugEnabled()) {
-            logger.debug("Stored '{}' with state '{}' as '{}' in MapDB database", localAlias, state, json);
+        try {
+            map.put(localAlias, serializer.serialize(mItem));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Couldn't store '{}': {}", localAlias, e.getMessage());
+            return;
         }
+        int pending = pendingWrites.incrementAndGet();
+        if (commitJob == null || (commitSize > 0 && pending >= commitSize)) {
+            commit();
+        }
+        logger.debug("Stored '{}' with state '{}' in MapDB database", localAlias, state);
     }
 
     @Override
     public Iterable<HistoricItem> query(FilterCriteria filter) {
-        String json = map.get(filter.getItemName());
-        if (json == null) {
+        String itemName = filter.getItemName();
+        Object value = map.get(itemName);
+        if (value == null) {
             return List.of();
         }
-        Optional<MapDbItem> item = deserialize(json);
+        Optional<MapDbItem> item = deserialize(itemName, value);
         return item.isPresent() ? List.of(item.get()) : List.of();
     }
 
-    private String serialize(MapDbItem item) {
-        return mapper.toJson(item);
+    /**
+     * Returns the number of stored values which have not been committed yet.
+     */
+    public int getPendingWrites() {
+        return pendingWrites.get();
+    }
+
+    private Optional<MapDbItem> deserialize(String name, Object value) {
+        if (value instanceof byte[]) {
+            return Optional.ofNullable(serializer.deserialize(name, (byte[]) value));
+        }
+        return deserialize(value.toString());
     }
 
     @SuppressWarnings("null")
@@ -218,7 +290,24 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
     }
 
     private void commit() {
-        threadPool.submit(() -> db.commit());
+        // stores made until the commit starts are part of it, so a single pending commit is enough
+        if (commitScheduled.compareAndSet(false, true)) {
+            scheduler.execute(this::commitPending);
+        }
+    }
+
+    private synchronized void commitPending() {
+        commitScheduled.set(false);
+        int pending = pendingWrites.getAndSet(0);
+        if (pending == 0) {
+            return;
+        }
+        try {
+            db.commit();
+            logger.trace("Committed {} changes to MapDB database", pending);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to commit {} changes to MapDB database: {}", pending, e.getMessage());
+        }
     }
 
     private static <T> Stream<T> streamOptional(Optional<T> opt) {
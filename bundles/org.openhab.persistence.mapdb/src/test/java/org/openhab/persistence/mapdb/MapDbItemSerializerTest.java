@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.HSBType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.OpenClosedType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.QuantityType;
+import org.openhab.core.library.types.RawType;
+import org.openhab.core.library.types.StringListType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.library.unit.SIUnits;
+import org.openhab.core.types.State;
+import org.openhab.persistence.mapdb.internal.MapDbItem;
+import org.openhab.persistence.mapdb.internal.MapDbItemSerializer;
+
+/**
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class MapDbItemSerializerTest {
+    private MapDbItemSerializer serializer = new MapDbItemSerializer();
+
+    @ParameterizedTest
+    @MethodSource
+    public void serializeDeserializeRoundtripShouldRecreateTheItem(State state) {
+        MapDbItem item = new MapDbItem();
+        item.setName("test");
+        item.setState(state);
+        item.setTimestamp(new Date(1650000000123L));
+
+        MapDbItem actual = Objects.requireNonNull(serializer.deserialize("test", serializer.serialize(item)));
+        assertThat(actual.getName(), is(equalTo("test")));
+        assertThat(actual.getState(), is(equalTo(state)));
+        assertThat(actual.getTimestamp(), is(equalTo(item.getTimestamp())));
+    }
+
+    public static Stream<State> serializeDeserializeRoundtripShouldRecreateTheItem() {
+        return Stream.of(new DecimalType(1.123), new QuantityType<>(new BigDecimal("21.23"), SIUnits.CELSIUS),
+                OnOffType.ON, OpenClosedType.CLOSED, PercentType.valueOf("99.999"), HSBType.fromRGB(11, 22, 33),
+                StringType.valueOf("a b c 1 2 3"), StringType.valueOf(""),
+                // not one of the common types, written with its class name
+                new RawType(new byte[] { 1, 2, 3 }, RawType.DEFAULT_MIME_TYPE), new StringListType("a", "b"));
+    }
+
+    @Test
+    public void deserializeShouldRejectUnknownFormat() {
+        assertThat(serializer.deserialize("test", new byte[] { 99, 0, 0 }), is(nullValue()));
+    }
+
+    @Test
+    public void deserializeShouldRejectUnknownStateType() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(1);
+            out.writeLong(1650000000123L);
+            out.writeByte(0);
+            out.writeUTF("java.lang.Thread");
+            out.writeInt(0);
+        }
+        assertThat(serializer.deserialize("test", bytes.toByteArray()), is(nullValue()));
+    }
+}
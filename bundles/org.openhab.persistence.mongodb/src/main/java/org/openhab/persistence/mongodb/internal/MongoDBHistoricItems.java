@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mongodb.internal;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import org.bson.Document;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.core.persistence.HistoricItem;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCursor;
+
+/**
+ * Result of a query whose documents are read from a cursor while it is iterated.
+ *
+ * Every iteration opens its own cursor, which is closed as soon as all documents have been read or reading a document
+ * fails.
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class MongoDBHistoricItems implements Iterable<HistoricItem> {
+    private final FindIterable<Document> documents;
+    private final Function<Document, HistoricItem> mapper;
+
+    public MongoDBHistoricItems(FindIterable<Document> documents, Function<Document, HistoricItem> mapper) {
+        this.documents = documents;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public Iterator<HistoricItem> iterator() {
+        return new CursorIterator(documents.iterator());
+    }
+
+    private class CursorIterator implements Iterator<HistoricItem> {
+        private final MongoCursor<Document> cursor;
+        private boolean closed;
+
+        private CursorIterator(MongoCursor<Document> cursor) {
+            this.cursor = cursor;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (closed) {
+                return false;
+            }
+            try {
+                if (cursor.hasNext()) {
+                    return true;
+                }
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+            close();
+            return false;
+        }
+
+        @Override
+        public HistoricItem next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                return mapper.apply(cursor.next());
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        private void close() {
+            closed = true;
+            cursor.close();
+        }
+    }
+}
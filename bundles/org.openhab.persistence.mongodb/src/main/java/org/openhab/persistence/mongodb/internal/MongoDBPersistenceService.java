@@ -21,8 +21,9 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.bson.types.ObjectId;
+import org.bson.Document;
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.items.Item;
@@ -59,25 +60,30 @@ import org.osgi.service.component.annotations.Reference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.mongodb.BasicDBObject;
-import com.mongodb.DBCollection;
-import com.mongodb.DBCursor;
-import com.mongodb.DBObject;
-import com.mongodb.MongoClient;
-import com.mongodb.MongoClientURI;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.TimeSeriesOptions;
+import com.mongodb.connection.ServerDescription;
 
 /**
  * This is the implementation of the MongoDB {@link PersistenceService}.
  *
  * @author Thorsten Hoeger - Initial contribution
  * @author Stephan Brunner - Query fixes, Cleanup
+ * @author Marty Phelan - Buffered bulk inserts, time series collections and streamed queries
  */
 @NonNullByDefault
 @Component(service = { PersistenceService.class,
-        QueryablePersistenceService.class }, configurationPid = "org.openhab.mongodb", configurationPolicy = ConfigurationPolicy.REQUIRE)
+        QueryablePersistenceService.class }, configurationPid = "org.openhab.mongodb", //
+        configurationPolicy = ConfigurationPolicy.REQUIRE)
 public class MongoDBPersistenceService implements QueryablePersistenceService {
 
-    private static final String FIELD_ID = "_id";
     private static final String FIELD_ITEM = "item";
     private static final String FIELD_REALNAME = "realName";
     private static final String FIELD_TIMESTAMP = "timestamp";
@@ -89,6 +95,7 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
     private String db = "";
     private String collection = "";
     private boolean collectionPerItem;
+    private boolean timeSeries;
 
     private boolean initialized = false;
 
@@ -96,6 +103,11 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
 
     private @Nullable MongoClient cl;
 
+    // collections which have been created and indexed since connecting
+    private final Set<String> preparedCollections = ConcurrentHashMap.newKeySet();
+
+    private @Nullable MongoDBWriteBuffer writeBuffer;
+
     @Activate
     public MongoDBPersistenceService(final @Reference ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
@@ -127,6 +139,15 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
         collection = dbCollection == null ? "" : dbCollection;
         collectionPerItem = dbCollection == null || dbCollection.isBlank();
 
+        timeSeries = Boolean.parseBoolean(String.valueOf(config.get("timeSeries")));
+        int bufferSize = getIntConfig(config, "bufferSize", 1000);
+        int batchSize = getIntConfig(config, "batchSize", 100);
+        int lingerTime = getIntConfig(config, "lingerTime", 1000);
+        logger.debug("MongoDB timeSeries={}, bufferSize={}, batchSize={}, lingerTime={}", timeSeries, bufferSize,
+                batchSize, lingerTime);
+        writeBuffer = new MongoDBWriteBuffer(this::connectToCollectionForWrite, Math.max(1, bufferSize),
+                Math.max(1, batchSize), Math.max(1, lingerTime));
+
         if (!tryConnectToDatabase()) {
             logger.warn("Failed to connect to MongoDB server. Trying to reconnect later.");
         }
@@ -137,9 +158,29 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
     @Deactivate
     public void deactivate(final int reason) {
         logger.debug("MongoDB persistence bundle stopping. Disconnecting from database.");
+        MongoDBWriteBuffer writeBuffer = this.writeBuffer;
+        this.writeBuffer = null;
+        if (writeBuffer != null) {
+            writeBuffer.shutdown();
+            logger.debug("MongoDB wrote {} documents, dropped {} documents", writeBuffer.getWritten(),
+                    writeBuffer.getDropped());
+        }
         disconnectFromDatabase();
     }
 
+    private int getIntConfig(final Map<String, Object> config, String key, int defaultValue) {
+        Object value = config.get(key);
+        if (value == null || value.toString().isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.toString().trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid value '{}' for mongodb:{}, using {}", value, key, defaultValue);
+            return defaultValue;
+        }
+    }
+
     @Override
     public String getId() {
         return "mongodb";
@@ -158,41 +199,25 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
         }
 
         // If we've not initialized the bundle, then return
-        if (!initialized) {
+        MongoDBWriteBuffer writeBuffer = this.writeBuffer;
+        if (!initialized || writeBuffer == null) {
             logger.warn("MongoDB not initialized");
             return;
         }
 
-        // Connect to mongodb server if we're not already connected
-        // If we can't connect, log.
-        if (!tryConnectToDatabase()) {
-            logger.warn(
-                    "mongodb: No connection to database. Cannot persist item '{}'! Will retry connecting to database next time.",
-                    item);
-            return;
-        }
-
         String realItemName = item.getName();
         String collectionName = collectionPerItem ? realItemName : this.collection;
 
-        @Nullable
-        DBCollection collection = connectToCollection(collectionName);
-
-        if (collection == null) {
-            // Logging is done in connectToCollection()
-            return;
-        }
-
         String name = (alias != null) ? alias : realItemName;
         Object value = this.convertValue(item.getState());
 
-        DBObject obj = new BasicDBObject();
-        obj.put(FIELD_ID, new ObjectId());
+        // the connection is established by the writer, the _id is added by the driver
+        Document obj = new Document();
         obj.put(FIELD_ITEM, name);
         obj.put(FIELD_REALNAME, realItemName);
         obj.put(FIELD_TIMESTAMP, new Date());
         obj.put(FIELD_VALUE, value);
-        collection.save(obj);
+        writeBuffer.add(collectionName, obj);
 
         logger.debug("MongoDB save {}={}", name, value);
     }
@@ -223,22 +248,21 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
 
     /**
      * Checks if we have a database connection.
-     * Also tests if communication with the MongoDB-Server is available.
+     * Also tests if communication with the MongoDB-Server is available, as seen by the monitor of the client.
      *
      * @return true if connection has been established, false otherwise
      */
     private synchronized boolean isConnected() {
-        if (cl == null) {
+        MongoClient client = cl;
+        if (client == null) {
             return false;
         }
 
-        // Also check if the connection is valid.
         // Network problems may cause failure sometimes,
-        // even if the connection object was successfully created before.
+        // even if the client was successfully created before.
         try {
-            cl.getAddress();
-            return true;
-        } catch (Exception ex) {
+            return client.getClusterDescription().getServerDescriptions().stream().anyMatch(ServerDescription::isOk);
+        } catch (RuntimeException e) {
             return false;
         }
     }
@@ -257,11 +281,12 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
             logger.debug("Connect MongoDB");
             disconnectFromDatabase();
 
-            this.cl = new MongoClient(new MongoClientURI(this.url));
+            MongoClient client = createClient(this.url);
+            this.cl = client;
 
             // The mongo always succeeds in creating the connection.
             // We have to actually force it to test the connection to try to connect to the server.
-            cl.getAddress();
+            client.getDatabase(this.db).runCommand(new Document("ping", 1));
 
             logger.debug("Connect MongoDB ... done");
             return true;
@@ -272,6 +297,13 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
         }
     }
 
+    /**
+     * Creates the client, the connection is established in the background.
+     */
+    MongoClient createClient(String url) {
+        return MongoClients.create(url);
+    }
+
     /**
      * Fetches the currently valid database.
      *
@@ -284,9 +316,11 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
     /**
      * Connects to the Collection
      *
+     * The collection is created and indexed only the first time it is used after connecting.
+     *
      * @return The collection object when collection creation was successful. Null otherwise.
      */
-    private @Nullable DBCollection connectToCollection(String collectionName) {
+    private @Nullable MongoCollection<Document> connectToCollection(String collectionName) {
         try {
             @Nullable
             MongoClient db = getDatabase();
@@ -296,11 +330,20 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
                 return null;
             }
 
-            DBCollection mongoCollection = db.getDB(this.db).getCollection(collectionName);
-
-            BasicDBObject idx = new BasicDBObject();
-            idx.append(FIELD_ITEM, 1).append(FIELD_TIMESTAMP, 1);
-            mongoCollection.createIndex(idx);
+            MongoDatabase database = db.getDatabase(this.db);
+            MongoCollection<Document> mongoCollection = database.getCollection(collectionName);
+
+            if (preparedCollections.add(collectionName)) {
+                try {
+                    if (timeSeries) {
+                        createTimeSeriesCollection(database, collectionName);
+                    }
+                    mongoCollection.createIndex(Indexes.ascending(FIELD_ITEM, FIELD_TIMESTAMP));
+                } catch (RuntimeException e) {
+                    preparedCollections.remove(collectionName);
+                    throw e;
+                }
+            }
 
             return mongoCollection;
         } catch (Exception e) {
@@ -309,6 +352,31 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
         }
     }
 
+    /**
+     * Creates a time series collection with the item as meta field, unless the collection already exists.
+     * Existing collections are not converted.
+     */
+    private void createTimeSeriesCollection(MongoDatabase database, String collectionName) {
+        if (database.listCollectionNames().into(new ArrayList<>()).contains(collectionName)) {
+            return;
+        }
+        logger.debug("Creating time series collection {}", collectionName);
+        database.createCollection(collectionName, new CreateCollectionOptions()
+                .timeSeriesOptions(new TimeSeriesOptions(FIELD_TIMESTAMP).metaField(FIELD_ITEM)));
+    }
+
+    /**
+     * Connects to the database if needed and to the collection, used by the {@link MongoDBWriteBuffer}.
+     */
+    private @Nullable MongoCollection<Document> connectToCollectionForWrite(String collectionName) {
+        if (!tryConnectToDatabase()) {
+            logger.warn("mongodb: No connection to database. Will retry writing to collection '{}' later.",
+                    collectionName);
+            return null;
+        }
+        return connectToCollection(collectionName);
+    }
+
     /**
      * Disconnects from the database
      */
@@ -318,6 +386,7 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
         }
 
         cl = null;
+        preparedCollections.clear();
     }
 
     @Override
@@ -333,7 +402,7 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
         String realItemName = filter.getItemName();
         String collectionName = collectionPerItem ? realItemName : this.collection;
         @Nullable
-        DBCollection collection = connectToCollection(collectionName);
+        MongoCollection<Document> collection = connectToCollection(collectionName);
 
         // If collection creation failed, return nothing.
         if (collection == null) {
@@ -349,8 +418,7 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
             return Collections.emptyList();
         }
 
-        List<HistoricItem> items = new ArrayList<>();
-        BasicDBObject query = new BasicDBObject();
+        Document query = new Document();
         if (filter.getItemName() != null) {
             query.put(FIELD_ITEM, filter.getItemName());
         }
@@ -364,10 +432,10 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
             }
 
             Object value = convertValue(filter.getState());
-            query.put(FIELD_VALUE, new BasicDBObject(op, value));
+            query.put(FIELD_VALUE, new Document(op, value));
         }
 
-        BasicDBObject dateQueries = new BasicDBObject();
+        Document dateQueries = new Document();
         if (filter.getBeginDate() != null) {
             dateQueries.put("$gte", Date.from(filter.getBeginDate().toInstant()));
         }
@@ -381,35 +449,40 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
         logger.debug("Query: {}", query);
 
         Integer sortDir = (filter.getOrdering() == Ordering.ASCENDING) ? 1 : -1;
-        DBCursor cursor = collection.find(query).sort(new BasicDBObject(FIELD_TIMESTAMP, sortDir))
-                .skip(filter.getPageNumber() * filter.getPageSize()).limit(filter.getPageSize());
-
-        while (cursor.hasNext()) {
-            BasicDBObject obj = (BasicDBObject) cursor.next();
-
-            final State state;
-            if (item instanceof NumberItem) {
-                state = new DecimalType(obj.getDouble(FIELD_VALUE));
-            } else if (item instanceof DimmerItem) {
-                state = new PercentType(obj.getInt(FIELD_VALUE));
-            } else if (item instanceof SwitchItem) {
-                state = OnOffType.valueOf(obj.getString(FIELD_VALUE));
-            } else if (item instanceof ContactItem) {
-                state = OpenClosedType.valueOf(obj.getString(FIELD_VALUE));
-            } else if (item instanceof RollershutterItem) {
-                state = new PercentType(obj.getInt(FIELD_VALUE));
-            } else if (item instanceof DateTimeItem) {
-                state = new DateTimeType(
-                        ZonedDateTime.ofInstant(obj.getDate(FIELD_VALUE).toInstant(), ZoneId.systemDefault()));
-            } else {
-                state = new StringType(obj.getString(FIELD_VALUE));
-            }
+        FindIterable<Document> documents = collection.find(query)
+                .projection(Projections.include(FIELD_TIMESTAMP, FIELD_VALUE))
+                .sort(new Document(FIELD_TIMESTAMP, sortDir)).skip(filter.getPageNumber() * filter.getPageSize())
+                .limit(filter.getPageSize());
 
-            items.add(new MongoDBItem(realItemName, state,
-                    ZonedDateTime.ofInstant(obj.getDate(FIELD_TIMESTAMP).toInstant(), ZoneId.systemDefault())));
-        }
+        return toHistoricItems(documents, item, realItemName);
+    }
 
-        return items;
+    /**
+     * The documents are read from the cursor while the result is iterated, the cursor is closed once all documents
+     * have been read.
+     */
+    private Iterable<HistoricItem> toHistoricItems(FindIterable<Document> documents, Item item, String realItemName) {
+        return new MongoDBHistoricItems(documents, obj -> new MongoDBItem(realItemName, toState(item, obj),
+                ZonedDateTime.ofInstant(obj.getDate(FIELD_TIMESTAMP).toInstant(), ZoneId.systemDefault())));
+    }
+
+    private State toState(Item item, Document obj) {
+        Object value = obj.get(FIELD_VALUE);
+        if (item instanceof NumberItem) {
+            return new DecimalType(((Number) value).doubleValue());
+        } else if (item instanceof DimmerItem) {
+            return new PercentType(((Number) value).intValue());
+        } else if (item instanceof SwitchItem) {
+            return OnOffType.valueOf(String.valueOf(value));
+        } else if (item instanceof ContactItem) {
+            return OpenClosedType.valueOf(String.valueOf(value));
+        } else if (item instanceof RollershutterItem) {
+            return new PercentType(((Number) value).intValue());
+        } else if (item instanceof DateTimeItem) {
+            return new DateTimeType(ZonedDateTime.ofInstant(((Date) value).toInstant(), ZoneId.systemDefault()));
+        } else {
+            return new StringType(String.valueOf(value));
+        }
     }
 
     private @Nullable String convertOperator(Operator operator) {
@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mongodb.internal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.bson.Document;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+
+/**
+ * Bounded buffer of documents which are inserted by a single writer thread.
+ *
+ * The buffer is flushed when it holds {@code batchSize} documents or after {@code lingerTime} milliseconds, whichever
+ * comes first. All documents of a collection are inserted by one unordered {@code insertMany}. If the buffer is full,
+ * the oldest document is dropped. Documents which could not be inserted because the database is not reachable are put
+ * back into the buffer and retried with the next flush.
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class MongoDBWriteBuffer {
+    private final Logger logger = LoggerFactory.getLogger(MongoDBWriteBuffer.class);
+
+    private final Function<String, @Nullable MongoCollection<Document>> collectionProvider;
+    private final int batchSize;
+
+    private final BlockingDeque<PendingDocument> buffer;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final ScheduledExecutorService writer = Executors
+            .newSingleThreadScheduledExecutor(new NamedThreadFactory("mongodb-writer"));
+
+    private static class PendingDocument {
+        private final String collectionName;
+        private final Document document;
+
+        private PendingDocument(String collectionName, Document document) {
+            this.collectionName = collectionName;
+            this.document = document;
+        }
+    }
+
+    public MongoDBWriteBuffer(Function<String, @Nullable MongoCollection<Document>> collectionProvider, int bufferSize,
+            int batchSize, int lingerTime) {
+        this.collectionProvider = collectionProvider;
+        this.batchSize = batchSize;
+        this.buffer = new LinkedBlockingDeque<>(bufferSize);
+        writer.scheduleWithFixedDelay(this::flush, lingerTime, lingerTime, TimeUnit.MILLISECONDS);
+    }
+
+    public void add(String collectionName, Document document) {
+        PendingDocument pending = new PendingDocument(collectionName, document);
+        while (!buffer.offerLast(pending)) {
+            if (buffer.pollFirst() != null) {
+                dropped.incrementAndGet();
+                logger.debug("Write buffer is full, dropped the oldest document");
+            }
+        }
+        if (buffer.size() >= batchSize && !writer.isShutdown() && flushRequested.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                // the buffer is being shut down, shutdown() writes the buffered documents
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    /**
+     * Inserts all buffered documents and stops the writer thread.
+     */
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("Writer did not finish within 10 seconds.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        if (!buffer.isEmpty()) {
+            dropped.addAndGet(buffer.size());
+            logger.warn("Dropped {} documents which could not be written.", buffer.size());
+            buffer.clear();
+        }
+    }
+
+    public int getBufferSize() {
+        return buffer.size();
+    }
+
+    /**
+     * Returns the number of documents inserted into the database
+     */
+    public long getWritten() {
+        return written.get();
+    }
+
+    /**
+     * Returns the number of documents which were dropped, because the buffer was full or they were rejected
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    synchronized void flush() {
+        flushRequested.set(false);
+        List<PendingDocument> pending = new ArrayList<>(buffer.size());
+        buffer.drainTo(pending);
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<Document>> documentsByCollection = new LinkedHashMap<>();
+        for (PendingDocument document : pending) {
+            documentsByCollection.computeIfAbsent(document.collectionName, name -> new ArrayList<>())
+                    .add(document.document);
+        }
+
+        long timerStart = System.currentTimeMillis();
+        int index = 0;
+        for (Map.Entry<String, List<Document>> entry : documentsByCollection.entrySet()) {
+            List<Document> documents = entry.getValue();
+            try {
+                MongoCollection<Document> collection = collectionProvider.apply(entry.getKey());
+                if (collection == null) {
+                    // logging is done by the provider
+                    requeue(pending, documentsByCollection, index);
+                    return;
+                }
+                collection.insertMany(documents, new InsertManyOptions().ordered(false));
+                written.addAndGet(documents.size());
+            } catch (MongoBulkWriteException e) {
+                // the rejected documents would be rejected again
+                int rejected = e.getWriteErrors().size();
+                written.addAndGet(documents.size() - rejected);
+                dropped.addAndGet(rejected);
+                logger.warn("{} documents were rejected by collection {}: {}", rejected, entry.getKey(),
+                        e.getMessage());
+            } catch (RuntimeException e) {
+                logger.warn("Failed to write {} documents to collection {}, will retry: {}", documents.size(),
+                        entry.getKey(), e.getMessage());
+                requeue(pending, documentsByCollection, index);
+                return;
+            }
+            index++;
+        }
+        logger.debug("Wrote {} documents in {} ms", pending.size(), System.currentTimeMillis() - timerStart);
+    }
+
+    /**
+     * Puts the documents of all collections starting at the given index back to the head of the buffer, keeping
+     * their order.
+     */
+    private void requeue(List<PendingDocument> pending, Map<String, List<Document>> documentsByCollection,
+            int firstCollection) {
+        List<String> collectionNames = new ArrayList<>(documentsByCollection.keySet())
+                .subList(firstCollection, documentsByCollection.size());
+        ListIterator<PendingDocument> iterator = pending.listIterator(pending.size());
+        while (iterator.hasPrevious()) {
+            PendingDocument document = iterator.previous();
+            if (collectionNames.contains(document.collectionName) && !buffer.offerFirst(document)) {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+}
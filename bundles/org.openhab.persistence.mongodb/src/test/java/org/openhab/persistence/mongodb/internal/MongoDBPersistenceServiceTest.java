@@ -0,0 +1,206 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mongodb.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.openhab.core.items.ItemNotFoundException;
+import org.openhab.core.items.ItemRegistry;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.HistoricItem;
+import org.osgi.framework.BundleContext;
+
+import com.mongodb.MongoException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.MongoIterable;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.TimeSeriesOptions;
+import com.mongodb.connection.ClusterConnectionMode;
+import com.mongodb.connection.ClusterDescription;
+import com.mongodb.connection.ClusterType;
+import com.mongodb.connection.ServerConnectionState;
+import com.mongodb.connection.ServerDescription;
+
+/**
+ * Tests the {@link MongoDBPersistenceService} with a mocked client.
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+@SuppressWarnings("unchecked")
+public class MongoDBPersistenceServiceTest {
+
+    private final ItemRegistry itemRegistry = mock(ItemRegistry.class);
+    private final MongoClient client = mock(MongoClient.class);
+    private final MongoDatabase database = mock(MongoDatabase.class);
+    private final MongoCollection<Document> collection = mock(MongoCollection.class);
+    private final MongoIterable<String> collectionNames = mock(MongoIterable.class);
+    private final FindIterable<Document> documents = mock(FindIterable.class);
+    private final MongoCursor<Document> cursor = mock(MongoCursor.class);
+
+    private final List<String> existingCollections = new ArrayList<>();
+    private final AtomicInteger createdClients = new AtomicInteger();
+    private boolean serverAvailable = true;
+
+    private final MongoDBPersistenceService service = new MongoDBPersistenceService(itemRegistry) {
+        @Override
+        MongoClient createClient(String url) {
+            createdClients.incrementAndGet();
+            return client;
+        }
+    };
+
+    @BeforeEach
+    public void setup() throws ItemNotFoundException {
+        when(client.getDatabase("openhab")).thenReturn(database);
+        when(client.getClusterDescription()).thenAnswer(i -> clusterDescription(serverAvailable));
+        when(database.getCollection("Test")).thenReturn(collection);
+        when(database.listCollectionNames()).thenReturn(collectionNames);
+        when(collectionNames.into(any())).thenAnswer(i -> {
+            Collection<String> target = i.getArgument(0);
+            target.addAll(existingCollections);
+            return target;
+        });
+        when(collection.find(any(Bson.class))).thenReturn(documents);
+        when(documents.projection(any())).thenReturn(documents);
+        when(documents.sort(any())).thenReturn(documents);
+        when(documents.skip(anyInt())).thenReturn(documents);
+        when(documents.limit(anyInt())).thenReturn(documents);
+        when(documents.iterator()).thenReturn(cursor);
+        when(itemRegistry.getItem("Test")).thenReturn(new NumberItem("Test"));
+
+        service.activate(mock(BundleContext.class), Map.of("url", "mongodb://localhost:27017", "database", "openhab",
+                "collection", "", "timeSeries", "true", "lingerTime", "3600000"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.deactivate(0);
+    }
+
+    private static ClusterDescription clusterDescription(boolean available) {
+        ServerDescription server = ServerDescription.builder().address(new ServerAddress())
+                .state(available ? ServerConnectionState.CONNECTED : ServerConnectionState.CONNECTING)
+                .ok(available).build();
+        return new ClusterDescription(ClusterConnectionMode.SINGLE, ClusterType.STANDALONE, List.of(server));
+    }
+
+    private Iterable<HistoricItem> query() {
+        return service.query(new FilterCriteria().setItemName("Test"));
+    }
+
+    @Test
+    public void queryReadsDocumentsWhileIterating() {
+        when(cursor.hasNext()).thenReturn(true, true, false);
+        when(cursor.next()).thenReturn(new Document("timestamp", new Date()).append("value", 1.5),
+                new Document("timestamp", new Date()).append("value", 2.5));
+
+        Iterator<HistoricItem> iterator = query().iterator();
+        assertEquals(new DecimalType(1.5), iterator.next().getState());
+        verify(cursor, never()).close();
+
+        assertEquals(new DecimalType(2.5), iterator.next().getState());
+        assertFalse(iterator.hasNext());
+        // the cursor is closed once all documents have been read
+        verify(cursor).close();
+        assertFalse(iterator.hasNext());
+        verify(cursor).close();
+    }
+
+    @Test
+    public void cursorIsClosedIfReadingFails() {
+        when(cursor.hasNext()).thenReturn(true);
+        when(cursor.next()).thenThrow(new MongoException("failed"));
+
+        Iterator<HistoricItem> iterator = query().iterator();
+        assertThrows(MongoException.class, iterator::next);
+        verify(cursor).close();
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void timeSeriesCollectionIsCreatedAndIndexedOnce() {
+        query();
+        query();
+
+        ArgumentCaptor<CreateCollectionOptions> options = ArgumentCaptor.forClass(CreateCollectionOptions.class);
+        verify(database).createCollection(eq("Test"), options.capture());
+        TimeSeriesOptions timeSeriesOptions = options.getValue().getTimeSeriesOptions();
+        assertNotNull(timeSeriesOptions);
+        assertEquals("timestamp", timeSeriesOptions.getTimeField());
+        assertEquals("item", timeSeriesOptions.getMetaField());
+        verify(collection).createIndex(any(Bson.class));
+    }
+
+    @Test
+    public void existingCollectionIsNotConverted() {
+        existingCollections.add("Test");
+        query();
+
+        verify(database, never()).createCollection(anyString(), any(CreateCollectionOptions.class));
+        verify(collection).createIndex(any(Bson.class));
+    }
+
+    @Test
+    public void clientIsRecreatedIfNoServerIsAvailable() {
+        query();
+        assertEquals(1, createdClients.get());
+
+        serverAvailable = false;
+        query();
+        verify(client).close();
+        assertEquals(2, createdClients.get());
+    }
+
+    @Test
+    public void storedStatesAreInsertedOnDeactivation() {
+        NumberItem item = new NumberItem("Test");
+        item.setState(new DecimalType(21.5));
+        service.store(item, "Alias");
+        verify(collection, never()).insertMany(anyList(), any(InsertManyOptions.class));
+
+        service.deactivate(0);
+
+        ArgumentCaptor<List<Document>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(collection).insertMany(inserted.capture(), any(InsertManyOptions.class));
+        Document document = inserted.getValue().get(0);
+        assertEquals("Alias", document.get("item"));
+        assertEquals("Test", document.get("realName"));
+        assertEquals(21.5, document.get("value"));
+        assertInstanceOf(Date.class, document.get("timestamp"));
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mongodb.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.bson.Document;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.result.InsertManyResult;
+
+/**
+ * Tests the {@link MongoDBWriteBuffer}.
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class MongoDBWriteBufferTest {
+
+    private final Map<String, MongoCollection<Document>> collections = new HashMap<>();
+    private boolean available = true;
+    private @NonNullByDefault({}) MongoDBWriteBuffer buffer;
+
+    @AfterEach
+    public void tearDown() {
+        buffer.shutdown();
+    }
+
+    @SuppressWarnings("unchecked")
+    private @Nullable MongoCollection<Document> getCollection(String name) {
+        return available ? collections.computeIfAbsent(name, n -> mock(MongoCollection.class)) : null;
+    }
+
+    private MongoDBWriteBuffer createBuffer(int bufferSize) {
+        // neither the batch size nor the linger time triggers a flush, the test flushes explicitly
+        return new MongoDBWriteBuffer(this::getCollection, bufferSize, 100, 3600000);
+    }
+
+    private Document document(int value) {
+        return new Document("value", value);
+    }
+
+    @Test
+    public void documentsAreInsertedPerCollection() {
+        buffer = createBuffer(10);
+        buffer.add("a", document(1));
+        buffer.add("b", document(2));
+        buffer.add("a", document(3));
+
+        buffer.flush();
+
+        verify(collections.get("a")).insertMany(eq(List.of(document(1), document(3))), any(InsertManyOptions.class));
+        verify(collections.get("b")).insertMany(eq(List.of(document(2))), any(InsertManyOptions.class));
+        assertEquals(3, buffer.getWritten());
+        assertEquals(0, buffer.getBufferSize());
+    }
+
+    @Test
+    public void documentsAreKeptIfDatabaseIsNotAvailable() {
+        buffer = createBuffer(10);
+        available = false;
+        buffer.add("a", document(1));
+        buffer.add("a", document(2));
+
+        buffer.flush();
+        assertEquals(2, buffer.getBufferSize());
+        assertEquals(0, buffer.getWritten());
+
+        available = true;
+        buffer.flush();
+        verify(collections.get("a")).insertMany(eq(List.of(document(1), document(2))), any(InsertManyOptions.class));
+        assertEquals(2, buffer.getWritten());
+    }
+
+    @Test
+    public void failedInsertIsRetried() {
+        buffer = createBuffer(10);
+        buffer.add("a", document(1));
+        MongoCollection<Document> collection = Objects.requireNonNull(getCollection("a"));
+        when(collection.insertMany(anyList(), any(InsertManyOptions.class)))
+                .thenThrow(new IllegalStateException("failed")).thenReturn(mock(InsertManyResult.class));
+
+        buffer.flush();
+        assertEquals(1, buffer.getBufferSize());
+
+        buffer.flush();
+        verify(collection, times(2)).insertMany(eq(List.of(document(1))), any(InsertManyOptions.class));
+        assertEquals(1, buffer.getWritten());
+    }
+
+    @Test
+    public void oldestDocumentIsDroppedWhenBufferIsFull() {
+        buffer = createBuffer(2);
+        buffer.add("a", document(1));
+        buffer.add("a", document(2));
+        buffer.add("a", document(3));
+        assertEquals(1, buffer.getDropped());
+
+        buffer.flush();
+        verify(collections.get("a")).insertMany(eq(List.of(document(2), document(3))), any(InsertManyOptions.class));
+    }
+
+    @Test
+    public void documentsAddedAfterShutdownAreNotFlushed() {
+        buffer = new MongoDBWriteBuffer(this::getCollection, 10, 1, 3600000);
+        buffer.shutdown();
+
+        buffer.add("a", document(1));
+        assertEquals(1, buffer.getBufferSize());
+        assertEquals(0, buffer.getWritten());
+    }
+}
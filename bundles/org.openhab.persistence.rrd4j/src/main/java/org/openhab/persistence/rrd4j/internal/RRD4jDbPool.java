@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.rrd4j.internal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.rrd4j.core.RrdDb;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded pool of open {@link RrdDb} handles, so that a database file is not reopened for every stored value.
+ *
+ * Handles are kept in least-recently-used order. When more than {@code capacity} databases are open, the least
+ * recently used handles which are not in use are closed. Unlike the {@link org.rrd4j.core.RrdDbPool} of rrd4j, the
+ * pool never blocks when it is full.
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class RRD4jDbPool {
+    private final Logger logger = LoggerFactory.getLogger(RRD4jDbPool.class);
+
+    private final int capacity;
+    private final Function<String, @Nullable RrdDb> opener;
+
+    // access ordered, the eldest entry is the least recently used one
+    private final Map<String, PooledDb> handles = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * @param capacity the number of databases which are kept open
+     * @param opener opens (or creates) the database for the given name, returns {@code null} if that is not possible
+     */
+    public RRD4jDbPool(int capacity, Function<String, @Nullable RrdDb> opener) {
+        this.capacity = capacity;
+        this.opener = opener;
+    }
+
+    /**
+     * Returns the open database for the given name. Every handle returned by this method must be given back with
+     * {@link #release(String, RrdDb)} and must not be closed by the caller.
+     */
+    public @Nullable RrdDb acquire(String name) {
+        synchronized (this) {
+            PooledDb pooled = handles.get(name);
+            if (pooled != null) {
+                pooled.users++;
+                return pooled.db;
+            }
+        }
+
+        RrdDb db = opener.apply(name);
+        if (db == null) {
+            return null;
+        }
+
+        List<RrdDb> evicted = new ArrayList<>();
+        synchronized (this) {
+            PooledDb pooled = handles.get(name);
+            if (pooled != null) {
+                // opened concurrently, keep the handle which is already pooled
+                evicted.add(db);
+                db = pooled.db;
+                pooled.users++;
+            } else {
+                pooled = new PooledDb(db);
+                pooled.users++;
+                handles.put(name, pooled);
+                evict(evicted);
+            }
+        }
+        evicted.forEach(this::close);
+        return db;
+    }
+
+    /**
+     * Gives back a handle returned by {@link #acquire(String)}. Handles which are no longer pooled are closed.
+     */
+    public void release(String name, RrdDb db) {
+        synchronized (this) {
+            PooledDb pooled = handles.get(name);
+            if (pooled != null && pooled.db == db) {
+                pooled.users--;
+                return;
+            }
+        }
+        close(db);
+    }
+
+    /**
+     * Closes all handles. Handles which are currently in use are closed when they are released.
+     */
+    public void closeAll() {
+        List<RrdDb> unused = new ArrayList<>();
+        synchronized (this) {
+            for (PooledDb pooled : handles.values()) {
+                if (pooled.users == 0) {
+                    unused.add(pooled.db);
+                }
+            }
+            handles.clear();
+        }
+        unused.forEach(this::close);
+        logger.debug("Closed {} rrd4j databases", unused.size());
+    }
+
+    public synchronized int size() {
+        return handles.size();
+    }
+
+    private void evict(List<RrdDb> evicted) {
+        Iterator<PooledDb> iterator = handles.values().iterator();
+        while (handles.size() > capacity && iterator.hasNext()) {
+            PooledDb pooled = iterator.next();
+            if (pooled.users == 0) {
+                iterator.remove();
+                evicted.add(pooled.db);
+            }
+        }
+    }
+
+    private void close(RrdDb db) {
+        try {
+            db.close();
+        } catch (IOException e) {
+            logger.debug("Error closing rrd4j database: {}", e.getMessage());
+        }
+    }
+
+    private static class PooledDb {
+        private final RrdDb db;
+        private int users;
+
+        private PooledDb(RrdDb db) {
+            this.db = db;
+        }
+    }
+}
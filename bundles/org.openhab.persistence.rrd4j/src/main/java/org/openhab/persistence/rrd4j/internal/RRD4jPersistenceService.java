@@ -18,7 +18,6 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
@@ -30,6 +29,8 @@ import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 import javax.measure.Quantity;
 import javax.measure.Unit;
@@ -64,15 +65,18 @@ import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceCronStrategy;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.State;
+import org.openhab.persistence.rrd4j.internal.charts.RRD4jChartServlet;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.rrd4j.ConsolFun;
 import org.rrd4j.DsType;
 import org.rrd4j.core.FetchData;
 import org.rrd4j.core.FetchRequest;
+import org.rrd4j.core.RrdBackendFactory;
 import org.rrd4j.core.RrdDb;
 import org.rrd4j.core.RrdDef;
 import org.rrd4j.core.Sample;
@@ -87,21 +91,29 @@ import org.slf4j.LoggerFactory;
  * @author Kai Kreuzer - Initial contribution
  * @author Jan N. Klug - some improvements
  * @author Karel Goderis - remove TimerThread dependency
+ * @author Marty Phelan - per item locking and pooled database handles
  */
 @NonNullByDefault
-@Component(service = { PersistenceService.class,
-        QueryablePersistenceService.class }, configurationPid = "org.openhab.rrd4j", configurationPolicy = ConfigurationPolicy.OPTIONAL)
+@Component(service = { PersistenceService.class, QueryablePersistenceService.class,
+        RRD4jPersistenceService.class }, configurationPid = "org.openhab.rrd4j", //
+        configurationPolicy = ConfigurationPolicy.OPTIONAL)
 public class RRD4jPersistenceService implements QueryablePersistenceService {
 
     private static final String DEFAULT_OTHER = "default_other";
     private static final String DEFAULT_NUMERIC = "default_numeric";
     private static final String DEFAULT_QUANTIFIABLE = "default_quantifiable";
 
+    private static final String CONFIG_BACKEND = "backend";
+    private static final String CONFIG_DB_POOL_SIZE = "dbPoolSize";
+    private static final Set<String> SUPPORTED_BACKENDS = Set.of("FILE", "NIO", "SAFE");
+    private static final int DEFAULT_DB_POOL_SIZE = 256;
+    private static final int LOCK_STRIPES = 64;
+
     private static final Set<String> SUPPORTED_TYPES = Set.of(CoreItemFactory.SWITCH, CoreItemFactory.CONTACT,
             CoreItemFactory.DIMMER, CoreItemFactory.NUMBER, CoreItemFactory.ROLLERSHUTTER, CoreItemFactory.COLOR);
 
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(3,
-            new NamedThreadFactory("RRD4j"));
+    private final ScheduledExecutorService scheduler = Executors
+            .newSingleThreadScheduledExecutor(new NamedThreadFactory("RRD4j"));
 
     private final Map<String, RrdDefConfig> rrdDefs = new ConcurrentHashMap<>();
 
@@ -111,13 +123,27 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
 
     private final Logger logger = LoggerFactory.getLogger(RRD4jPersistenceService.class);
 
-    private final Map<String, ScheduledFuture<?>> scheduledJobs = new HashMap<>();
+    // values which could not be stored yet, because the database has already been updated within the same second
+    private final Map<String, Item> deferredStores = new ConcurrentHashMap<>();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private volatile long lastTickDuration = 0;
+    private volatile int lastTickCount = 0;
+    private @Nullable ScheduledFuture<?> tickJob;
+
+    // items are locked by stripe, so stores of different items do not wait for each other
+    private final Object[] storeLocks = new Object[LOCK_STRIPES];
+
+    private volatile RRD4jDbPool dbPool = new RRD4jDbPool(DEFAULT_DB_POOL_SIZE, this::getDB);
+    private volatile @Nullable RrdBackendFactory backendFactory;
 
     protected final ItemRegistry itemRegistry;
 
     @Activate
     public RRD4jPersistenceService(final @Reference ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            storeLocks[i] = new Object();
+        }
     }
 
     @Override
@@ -131,95 +157,116 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
     }
 
     @Override
-    public synchronized void store(final Item item, @Nullable final String alias) {
+    public void store(final Item item, @Nullable final String alias) {
         if (!isSupportedItemType(item)) {
             logger.trace("Ignoring item '{}' since its type {} is not supported", item.getName(), item.getType());
             return;
         }
-        final String name = alias == null ? item.getName() : alias;
-        RrdDb db = getDB(name);
-        if (db != null) {
-            ConsolFun function = getConsolidationFunction(db);
-            long now = System.currentTimeMillis() / 1000;
-            if (function != ConsolFun.AVERAGE) {
+        store(item, alias == null ? item.getName() : alias, false);
+    }
+
+    /**
+     * Stores the current state of the item.
+     *
+     * @param flush if the database has already been updated within the current second, the value is stored one second
+     *            after that update instead of being deferred to the next tick
+     */
+    private void store(final Item item, final String name, final boolean flush) {
+        synchronized (getLock(name)) {
+            RRD4jDbPool dbPool = this.dbPool;
+            RrdDb db = dbPool.acquire(name);
+            if (db != null) {
                 try {
-                    // we store the last value again, so that the value change
-                    // in the database is not interpolated, but
-                    // happens right at this spot
-                    if (now - 1 > db.getLastUpdateTime()) {
-                        // only do it if there is not already a value
-                        double lastValue = db.getLastDatasourceValue(DATASOURCE_STATE);
-                        if (!Double.isNaN(lastValue)) {
-                            Sample sample = db.createSample();
-                            sample.setTime(now - 1);
-                            sample.setValue(DATASOURCE_STATE, lastValue);
-                            sample.update();
-                            logger.debug("Stored '{}' as value '{}' in rrd4j database (again)", name, lastValue);
-                        }
-                    }
-                } catch (IOException e) {
-                    logger.debug("Error storing last value (again): {}", e.getMessage());
+                    store(item, name, db, flush);
+                } finally {
+                    dbPool.release(name, db);
                 }
             }
+        }
+    }
+
+    private void store(final Item item, final String name, final RrdDb db, final boolean flush) {
+        ConsolFun function = getConsolidationFunction(db);
+        long now = System.currentTimeMillis() / 1000;
+        try {
+            long lastUpdateTime = db.getLastUpdateTime();
+            if (now <= lastUpdateTime) {
+                if (!flush) {
+                    // rrd4j accepts only one sample per second
+                    deferStore(item, name);
+                    return;
+                }
+                now = lastUpdateTime + 1;
+            }
+        } catch (IOException e) {
+            logger.debug("Error reading last update time: {}", e.getMessage());
+        }
+        if (function != ConsolFun.AVERAGE) {
             try {
-                Sample sample = db.createSample();
-                sample.setTime(now);
-
-                Double value = null;
-
-                if (item instanceof NumberItem && item.getState() instanceof QuantityType) {
-                    NumberItem nItem = (NumberItem) item;
-                    QuantityType<?> qState = (QuantityType<?>) item.getState();
-                    Unit<? extends Quantity<?>> unit = nItem.getUnit();
-                    if (unit != null) {
-                        QuantityType<?> convertedState = qState.toUnit(unit);
-                        if (convertedState != null) {
-                            value = convertedState.doubleValue();
-                        } else {
-                            logger.warn(
-                                    "Failed to convert state '{}' to unit '{}'. Please check your item definition for correctness.",
-                                    qState, unit);
-                        }
+                // we store the last value again, so that the value change
+                // in the database is not interpolated, but
+                // happens right at this spot
+                if (now - 1 > db.getLastUpdateTime()) {
+                    // only do it if there is not already a value
+                    double lastValue = db.getLastDatasourceValue(DATASOURCE_STATE);
+                    if (!Double.isNaN(lastValue)) {
+                        Sample sample = db.createSample();
+                        sample.setTime(now - 1);
+                        sample.setValue(DATASOURCE_STATE, lastValue);
+                        sample.update();
+                        logger.debug("Stored '{}' as value '{}' in rrd4j database (again)", name, lastValue);
+                    }
+                }
+            } catch (IOException e) {
+                logger.debug("Error storing last value (again): {}", e.getMessage());
+            }
+        }
+        try {
+            Sample sample = db.createSample();
+            sample.setTime(now);
+
+            Double value = null;
+
+            if (item instanceof NumberItem && item.getState() instanceof QuantityType) {
+                NumberItem nItem = (NumberItem) item;
+                QuantityType<?> qState = (QuantityType<?>) item.getState();
+                Unit<? extends Quantity<?>> unit = nItem.getUnit();
+                if (unit != null) {
+                    QuantityType<?> convertedState = qState.toUnit(unit);
+                    if (convertedState != null) {
+                        value = convertedState.doubleValue();
                     } else {
-                        value = qState.doubleValue();
+                        logger.warn(
+                                "Failed to convert state '{}' to unit '{}'. Please check your item definition for correctness.",
+                                qState, unit);
                     }
                 } else {
-                    DecimalType state = item.getStateAs(DecimalType.class);
-                    if (state != null) {
-                        value = state.toBigDecimal().doubleValue();
-                    }
+                    value = qState.doubleValue();
                 }
-                if (value != null) {
-                    if (db.getDatasource(DATASOURCE_STATE).getType() == DsType.COUNTER) { // counter values must be
-                                                                                          // adjusted by stepsize
-                        value = value * db.getRrdDef().getStep();
-                    }
-                    sample.setValue(DATASOURCE_STATE, value);
-                    sample.update();
-                    logger.debug("Stored '{}' as value '{}' in rrd4j database", name, value);
+            } else {
+                DecimalType state = item.getStateAs(DecimalType.class);
+                if (state != null) {
+                    value = state.toBigDecimal().doubleValue();
                 }
-            } catch (IllegalArgumentException e) {
-                String message = e.getMessage();
-                if (message != null && message.contains("at least one second step is required")) {
-                    // we try to store the value one second later
-                    ScheduledFuture<?> job = scheduledJobs.get(name);
-                    if (job != null) {
-                        job.cancel(true);
-                        scheduledJobs.remove(name);
-                    }
-                    job = scheduler.schedule(() -> store(item, name), 1, TimeUnit.SECONDS);
-                    scheduledJobs.put(name, job);
-                } else {
-                    logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
+            }
+            if (value != null) {
+                if (db.getDatasource(DATASOURCE_STATE).getType() == DsType.COUNTER) { // counter values must be
+                                                                                      // adjusted by stepsize
+                    value = value * db.getRrdDef().getStep();
                 }
-            } catch (Exception e) {
-                logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
+                sample.setValue(DATASOURCE_STATE, value);
+                sample.update();
+                logger.debug("Stored '{}' as value '{}' in rrd4j database", name, value);
             }
-            try {
-                db.close();
-            } catch (IOException e) {
-                logger.debug("Error closing rrd4j database: {}", e.getMessage());
+        } catch (IllegalArgumentException e) {
+            String message = e.getMessage();
+            if (!flush && message != null && message.contains("at least one second step is required")) {
+                deferStore(item, name);
+            } else {
+                logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
             }
+        } catch (Exception e) {
+            logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
         }
     }
 
@@ -228,16 +275,127 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         store(item, null);
     }
 
+    /**
+     * Stores the value with the next tick. Only the latest value of an item is kept until then.
+     */
+    private void deferStore(final Item item, final String name) {
+        if (deferredStores.put(name, item) != null) {
+            coalescedCount.incrementAndGet();
+        }
+        logger.trace("Deferred storing '{}' to the next second", name);
+    }
+
+    /**
+     * Stores the deferred values of all items in one pass.
+     */
+    private void tick() {
+        if (deferredStores.isEmpty()) {
+            return;
+        }
+        long timerStart = System.currentTimeMillis();
+        int count = 0;
+        for (String name : deferredStores.keySet()) {
+            Item item = deferredStores.remove(name);
+            if (item != null) {
+                // reads the current state of the item, which is the latest value
+                store(item, name);
+                count++;
+            }
+        }
+        lastTickCount = count;
+        lastTickDuration = System.currentTimeMillis() - timerStart;
+        logger.debug("Stored {} deferred values in {} ms, {} values coalesced so far", count, lastTickDuration,
+                coalescedCount.get());
+    }
+
+    /**
+     * Stores the deferred values without waiting for the next tick, e.g. before the databases are closed. The values
+     * have been deferred because their database has already been updated within the current second, so they are
+     * stored one second after that update.
+     */
+    private void storeDeferred() {
+        int count = 0;
+        for (String name : deferredStores.keySet()) {
+            Item item = deferredStores.remove(name);
+            if (item != null) {
+                store(item, name, true);
+                count++;
+            }
+        }
+        if (count > 0) {
+            logger.debug("Stored {} deferred values without waiting for the next tick", count);
+        }
+    }
+
+    /**
+     * Returns the number of values which were replaced by a newer value of the same item before they were stored.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * Returns the time in milliseconds the last tick took to store the deferred values.
+     */
+    public long getLastTickDuration() {
+        return lastTickDuration;
+    }
+
+    /**
+     * Returns the number of deferred values stored by the last tick.
+     */
+    public int getLastTickCount() {
+        return lastTickCount;
+    }
+
     @Override
     public Iterable<HistoricItem> query(FilterCriteria filter) {
         String itemName = filter.getItemName();
 
-        RrdDb db = getDB(itemName);
+        RRD4jDbPool dbPool = this.dbPool;
+        RrdDb db;
+        synchronized (getLock(itemName)) {
+            db = dbPool.acquire(itemName);
+        }
         if (db == null) {
             logger.debug("Could not find item '{}' in rrd4j database", itemName);
             return List.of();
         }
 
+        try {
+            return query(filter, itemName, db);
+        } finally {
+            dbPool.release(itemName, db);
+        }
+    }
+
+    /**
+     * Applies the given function to the pooled database of an item. Databases which do not exist are not created.
+     *
+     * @param itemName the name of the item
+     * @param function reads from the database, it must not close it
+     * @return the result of the function, or null if the item has no database
+     */
+    public <T> @Nullable T withDb(String itemName, Function<RrdDb, @Nullable T> function) {
+        if (!new File(DB_FOLDER + File.separator + itemName + ".rrd").exists()) {
+            return null;
+        }
+        RRD4jDbPool dbPool = this.dbPool;
+        RrdDb db;
+        synchronized (getLock(itemName)) {
+            db = dbPool.acquire(itemName);
+        }
+        if (db == null) {
+            return null;
+        }
+        try {
+            return function.apply(db);
+        } finally {
+            dbPool.release(itemName, db);
+        }
+    }
+
+    private List<HistoricItem> query(FilterCriteria filter, String itemName, RrdDb db) {
         Item item = null;
         Unit<?> unit = null;
         try {
@@ -313,13 +471,26 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         return Set.of();
     }
 
-    protected synchronized @Nullable RrdDb getDB(String alias) {
+    private Object getLock(String alias) {
+        return storeLocks[Math.floorMod(alias.hashCode(), LOCK_STRIPES)];
+    }
+
+    /**
+     * Opens the database of the given item, or creates it if it does not exist yet. The caller is responsible for
+     * closing it. Within this service, databases are opened through the {@link RRD4jDbPool} and must not be closed.
+     */
+    protected @Nullable RrdDb getDB(String alias) {
         RrdDb db = null;
         File file = new File(DB_FOLDER + File.separator + alias + ".rrd");
+        RrdBackendFactory backendFactory = this.backendFactory;
         try {
             if (file.exists()) {
                 // recreate the RrdDb instance from the file
-                db = RrdDb.of(file.getAbsolutePath());
+                RrdDb.Builder builder = RrdDb.getBuilder().setPath(file.getAbsolutePath());
+                if (backendFactory != null) {
+                    builder.setBackendFactory(backendFactory);
+                }
+                db = builder.build();
             } else {
                 File folder = new File(DB_FOLDER);
                 if (!folder.exists()) {
@@ -328,7 +499,11 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
                 RrdDef rrdDef = getRrdDef(alias, file);
                 if (rrdDef != null) {
                     // create a new database file
-                    db = RrdDb.of(rrdDef);
+                    RrdDb.Builder builder = RrdDb.getBuilder().setRrdDef(rrdDef);
+                    if (backendFactory != null) {
+                        builder.setBackendFactory(backendFactory);
+                    }
+                    db = builder.build();
                 } else {
                     logger.debug(
                             "Did not create rrd4j database for item '{}' since no rrd definition could be determined. This is likely due to an unsupported item type.",
@@ -441,10 +616,29 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
     @Activate
     protected void activate(final Map<String, Object> config) {
         modified(config);
+        tickJob = scheduler.scheduleWithFixedDelay(this::tick, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        ScheduledFuture<?> tickJob = this.tickJob;
+        if (tickJob != null) {
+            tickJob.cancel(false);
+            this.tickJob = null;
+        }
+        scheduler.shutdown();
+        storeDeferred();
+        if (!deferredStores.isEmpty()) {
+            logger.debug("Discarding {} deferred values which could not be stored", deferredStores.size());
+            deferredStores.clear();
+        }
+        dbPool.closeAll();
     }
 
     @Modified
     protected void modified(final Map<String, Object> config) {
+        configureDbPool(config);
+
         // clean existing definitions
         rrdDefs.clear();
 
@@ -501,6 +695,16 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
                 continue;
             }
 
+            if (key.equals(CONFIG_BACKEND) || key.equals(CONFIG_DB_POOL_SIZE)) {
+                // handled by configureDbPool
+                continue;
+            }
+
+            if (key.equals(RRD4jChartServlet.CONFIG_CHART_CACHE_SIZE)) {
+                // handled by the chart servlet
+                continue;
+            }
+
             String[] subkeys = key.split("\\.");
             if (subkeys.length != 2) {
                 logger.debug("config '{}' should have the format 'name.configkey'", key);
@@ -552,6 +756,40 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         }
     }
 
+    private void configureDbPool(final Map<String, Object> config) {
+        RrdBackendFactory backendFactory = null;
+        Object backend = config.get(CONFIG_BACKEND);
+        if (backend instanceof String && !((String) backend).isBlank()) {
+            String backendName = ((String) backend).trim().toUpperCase();
+            if (SUPPORTED_BACKENDS.contains(backendName)) {
+                backendFactory = RrdBackendFactory.getFactory(backendName);
+            } else {
+                logger.warn("Ignoring unsupported rrd4j backend '{}', supported backends are {}", backend,
+                        SUPPORTED_BACKENDS);
+            }
+        }
+
+        int dbPoolSize = DEFAULT_DB_POOL_SIZE;
+        Object poolSize = config.get(CONFIG_DB_POOL_SIZE);
+        if (poolSize instanceof String && !((String) poolSize).isBlank()) {
+            try {
+                dbPoolSize = Math.max(0, Integer.parseInt(((String) poolSize).trim()));
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring illegal configuration: {} = {}", CONFIG_DB_POOL_SIZE, poolSize);
+            }
+        }
+
+        logger.debug("Using rrd4j backend '{}' and keeping up to {} databases open",
+                backendFactory != null ? backendFactory.getName() : RrdBackendFactory.getDefaultFactory().getName(),
+                dbPoolSize);
+        // deferred values are stored with the old pool, before its databases are closed
+        storeDeferred();
+        RRD4jDbPool oldPool = this.dbPool;
+        this.backendFactory = backendFactory;
+        this.dbPool = new RRD4jDbPool(dbPoolSize, this::getDB);
+        oldPool.closeAll();
+    }
+
     private class RrdArchiveDef {
         public @Nullable ConsolFun fcn;
         public double xff;
@@ -17,13 +17,22 @@ import static java.util.Map.entry;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.CRC32;
 
 import javax.imageio.ImageIO;
 import javax.servlet.Servlet;
@@ -31,6 +40,8 @@ import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -44,12 +55,13 @@ import org.openhab.core.ui.items.ItemUIRegistry;
 import org.openhab.persistence.rrd4j.internal.RRD4jPersistenceService;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
 import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.http.HttpService;
 import org.osgi.service.http.NamespaceException;
 import org.rrd4j.ConsolFun;
-import org.rrd4j.core.RrdDb;
 import org.rrd4j.graph.RrdGraph;
 import org.rrd4j.graph.RrdGraphConstants.FontTag;
 import org.rrd4j.graph.RrdGraphDef;
@@ -67,19 +79,29 @@ import org.slf4j.LoggerFactory;
  * <li>groups: A comma separated list of group names, whose members should be displayed
  * </ul>
  *
+ * Rendered charts are cached until the next step of the underlying databases, as the chart cannot change before.
+ * Cached charts are answered with {@code 304 Not Modified} if the browser already has them.
+ *
  * @author Kai Kreuzer - Initial contribution
  * @author Chris Jackson - a few improvements
  * @author Jan N. Klug - a few improvements
+ * @author Marty Phelan - chart cache
  *
  */
 @NonNullByDefault
-@Component(service = ChartProvider.class)
+@Component(service = ChartProvider.class, configurationPid = "org.openhab.rrd4j", //
+        configurationPolicy = ConfigurationPolicy.OPTIONAL)
 public class RRD4jChartServlet implements Servlet, ChartProvider {
 
     private final Logger logger = LoggerFactory.getLogger(RRD4jChartServlet.class);
 
     private static final int DEFAULT_HEIGHT = 240;
     private static final int DEFAULT_WIDTH = 480;
+    private static final int DEFAULT_CHART_CACHE_SIZE = 50;
+    private static final long DEFAULT_STEP = 10;
+
+    /** the configuration key of the number of cached charts, shared with the persistence service */
+    public static final String CONFIG_CHART_CACHE_SIZE = "chartCacheSize";
 
     /** the URI of this servlet */
     public static final String SERVLET_NAME = "/rrdchart.png";
@@ -106,17 +128,34 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
     private final HttpService httpService;
     private final ItemUIRegistry itemUIRegistry;
     private final TimeZoneProvider timeZoneProvider;
+    private final RRD4jPersistenceService persistenceService;
+
+    private volatile int chartCacheSize = DEFAULT_CHART_CACHE_SIZE;
+
+    // least recently used charts are removed first
+    private final Map<String, CachedChart> chartCache = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedChart> eldest) {
+            return size() > chartCacheSize;
+        }
+    };
+    private final Map<String, CompletableFuture<CachedChart>> pendingRenders = new ConcurrentHashMap<>();
 
     @Activate
     public RRD4jChartServlet(final @Reference HttpService httpService, final @Reference ItemUIRegistry itemUIRegistry,
-            final @Reference TimeZoneProvider timeZoneProvider) {
+            final @Reference TimeZoneProvider timeZoneProvider,
+            final @Reference RRD4jPersistenceService persistenceService) {
         this.httpService = httpService;
         this.itemUIRegistry = itemUIRegistry;
         this.timeZoneProvider = timeZoneProvider;
+        this.persistenceService = persistenceService;
     }
 
     @Activate
-    protected void activate() {
+    protected void activate(final Map<String, Object> config) {
+        modified(config);
         try {
             logger.debug("Starting up rrd chart servlet at {}", SERVLET_NAME);
             httpService.registerServlet(SERVLET_NAME, this, new Hashtable<>(), httpService.createDefaultHttpContext());
@@ -127,9 +166,34 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
         }
     }
 
+    @Modified
+    protected void modified(final Map<String, Object> config) {
+        int cacheSize = DEFAULT_CHART_CACHE_SIZE;
+        Object size = config.get(CONFIG_CHART_CACHE_SIZE);
+        if (size instanceof String && !((String) size).isBlank()) {
+            try {
+                cacheSize = Math.max(0, Integer.parseInt(((String) size).trim()));
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring illegal configuration: {} = {}", CONFIG_CHART_CACHE_SIZE, size);
+            }
+        }
+        logger.debug("Caching up to {} rendered charts", cacheSize);
+        synchronized (chartCache) {
+            chartCacheSize = cacheSize;
+            Iterator<String> keys = chartCache.keySet().iterator();
+            while (chartCache.size() > cacheSize && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+    }
+
     @Deactivate
     protected void deactivate() {
         httpService.unregister(SERVLET_NAME);
+        synchronized (chartCache) {
+            chartCache.clear();
+        }
     }
 
     @Override
@@ -140,17 +204,12 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
         int height = parseInt(req.getParameter("h"), DEFAULT_HEIGHT);
         String periodParam = req.getParameter("period");
         Duration period = periodParam == null ? DEFAULT_PERIOD : PERIODS.getOrDefault(periodParam, DEFAULT_PERIOD);
+        String items = req.getParameter("items");
+        String groups = req.getParameter("groups");
 
-        // Create the start and stop time
-        ZonedDateTime timeEnd = ZonedDateTime.now(timeZoneProvider.getTimeZone());
-        ZonedDateTime timeBegin = timeEnd.minus(period);
-
+        CachedChart chart;
         try {
-            BufferedImage chart = createChart(null, null, timeBegin, timeEnd, height, width, req.getParameter("items"),
-                    req.getParameter("groups"), null, null);
-            // Set the content type to that provided by the chart provider
-            res.setContentType("image/" + getChartType());
-            ImageIO.write(chart, getChartType().toString(), res.getOutputStream());
+            chart = getChart(period, height, width, items, groups);
         } catch (ItemNotFoundException e) {
             logger.debug("Item not found error while generating chart", e);
             throw new ServletException("Item not found error while generating chart: " + e.getMessage());
@@ -158,6 +217,123 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
             logger.debug("Illegal argument in chart", e);
             throw new ServletException("Illegal argument in chart: " + e.getMessage());
         }
+
+        if (req instanceof HttpServletRequest && res instanceof HttpServletResponse) {
+            HttpServletResponse httpResponse = (HttpServletResponse) res;
+            httpResponse.setHeader("ETag", chart.etag);
+            httpResponse.setDateHeader("Last-Modified", chart.lastModified);
+            if (isNotModified((HttpServletRequest) req, chart)) {
+                httpResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+        // Set the content type to that provided by the chart provider
+        res.setContentType("image/" + getChartType());
+        res.setContentLength(chart.image.length);
+        res.getOutputStream().write(chart.image);
+    }
+
+    /**
+     * Returns the cached chart or renders it. Concurrent requests for the same chart wait for a single rendering.
+     */
+    private CachedChart getChart(Duration period, int height, int width, @Nullable String items,
+            @Nullable String groups) throws ItemNotFoundException, ServletException {
+        String key = items + "|" + groups + "|" + period + "|" + width + "x" + height;
+        CachedChart chart;
+        synchronized (chartCache) {
+            chart = chartCache.get(key);
+        }
+        if (chart != null && System.currentTimeMillis() < chart.expires) {
+            return chart;
+        }
+
+        CompletableFuture<CachedChart> render = new CompletableFuture<>();
+        CompletableFuture<CachedChart> runningRender = pendingRenders.putIfAbsent(key, render);
+        if (runningRender != null) {
+            try {
+                return runningRender.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServletException("Interrupted while waiting for chart");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof ItemNotFoundException) {
+                    throw (ItemNotFoundException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new ServletException("Error generating chart", cause);
+            }
+        }
+
+        try {
+            chart = renderChart(period, height, width, items, groups);
+            synchronized (chartCache) {
+                chartCache.put(key, chart);
+            }
+            render.complete(chart);
+            return chart;
+        } catch (ItemNotFoundException | RuntimeException e) {
+            render.completeExceptionally(e);
+            throw e;
+        } finally {
+            pendingRenders.remove(key, render);
+        }
+    }
+
+    private CachedChart renderChart(Duration period, int height, int width, @Nullable String items,
+            @Nullable String groups) throws ItemNotFoundException {
+        // Create the start and stop time
+        ZonedDateTime timeEnd = ZonedDateTime.now(timeZoneProvider.getTimeZone());
+        ZonedDateTime timeBegin = timeEnd.minus(period);
+
+        BufferedImage image = createChart(null, null, timeBegin, timeEnd, height, width, items, groups, null, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, getChartType().toString(), out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing chart image", e);
+        }
+        byte[] bytes = out.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+
+        // the chart only changes when a new step of the databases begins
+        long step = getMinimumStep(getChartItems(items, groups));
+        long now = timeEnd.toEpochSecond();
+        long expires = (now / step + 1) * step * 1000;
+        return new CachedChart(bytes, "\"" + Long.toHexString(crc.getValue()) + "\"", now * 1000, expires);
+    }
+
+    private long getMinimumStep(List<Item> chartItems) {
+        long step = Long.MAX_VALUE;
+        for (Item item : chartItems) {
+            Long itemStep = persistenceService.withDb(item.getName(), db -> {
+                try {
+                    return db.getRrdDef().getStep();
+                } catch (IOException e) {
+                    logger.trace("Could not read step of '{}': {}", item.getName(), e.getMessage());
+                    return null;
+                }
+            });
+            if (itemStep != null) {
+                step = Math.min(step, itemStep);
+            }
+        }
+        return step == Long.MAX_VALUE ? DEFAULT_STEP : Math.max(step, 1);
+    }
+
+    private boolean isNotModified(HttpServletRequest req, CachedChart chart) {
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            return ifNoneMatch.contains(chart.etag) || ifNoneMatch.trim().equals("*");
+        }
+        try {
+            long ifModifiedSince = req.getDateHeader("If-Modified-Since");
+            return ifModifiedSince != -1 && ifModifiedSince >= chart.lastModified;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
     }
 
     private int parseInt(@Nullable String s, int defaultValue) {
@@ -185,15 +361,11 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
         Color color = LINECOLORS[counter % LINECOLORS.length];
         String label = itemUIRegistry.getLabel(item.getName());
         String rrdName = RRD4jPersistenceService.DB_FOLDER + File.separator + item.getName() + ".rrd";
-        ConsolFun consolFun;
         if (label != null && label.contains("[") && label.contains("]")) {
             label = label.substring(0, label.indexOf('['));
         }
-        try {
-            RrdDb db = RrdDb.of(rrdName);
-            consolFun = db.getRrdDef().getArcDefs()[0].getConsolFun();
-            db.close();
-        } catch (IOException e) {
+        ConsolFun consolFun = persistenceService.withDb(item.getName(), persistenceService::getConsolidationFunction);
+        if (consolFun == null) {
             consolFun = ConsolFun.MAX;
         }
         if (item instanceof NumberItem) {
@@ -250,13 +422,33 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
         graphDef.setFont(FontTag.DEFAULT, new Font("SansSerif", Font.PLAIN, 11));
 
         int seriesCounter = 0;
+        for (Item item : getChartItems(items, groups)) {
+            addLine(graphDef, item, seriesCounter++);
+        }
+
+        // Write the chart as a PNG image
+        try {
+            RrdGraph graph = new RrdGraph(graphDef);
+            BufferedImage bi = new BufferedImage(graph.getRrdGraphInfo().getWidth(),
+                    graph.getRrdGraphInfo().getHeight(), BufferedImage.TYPE_INT_RGB);
+            graph.render(bi.getGraphics());
+            return bi;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error generating RrdGraph", e);
+        }
+    }
+
+    /**
+     * Returns the items to draw, first the given items and then the members of the given groups.
+     */
+    private List<Item> getChartItems(@Nullable String items, @Nullable String groups) throws ItemNotFoundException {
+        List<Item> chartItems = new ArrayList<>();
 
         // Loop through all the items
         if (items != null) {
             String[] itemNames = items.split(",");
             for (String itemName : itemNames) {
-                Item item = itemUIRegistry.getItem(itemName);
-                addLine(graphDef, item, seriesCounter++);
+                chartItems.add(itemUIRegistry.getItem(itemName));
             }
         }
 
@@ -266,30 +458,31 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
             for (String groupName : groupNames) {
                 Item item = itemUIRegistry.getItem(groupName);
                 if (item instanceof GroupItem) {
-                    GroupItem groupItem = (GroupItem) item;
-                    for (Item member : groupItem.getMembers()) {
-                        addLine(graphDef, member, seriesCounter++);
-                    }
+                    chartItems.addAll(((GroupItem) item).getMembers());
                 } else {
                     throw new ItemNotFoundException("Item '" + item.getName() + "' defined in groups is not a group.");
                 }
             }
         }
-
-        // Write the chart as a PNG image
-        try {
-            RrdGraph graph = new RrdGraph(graphDef);
-            BufferedImage bi = new BufferedImage(graph.getRrdGraphInfo().getWidth(),
-                    graph.getRrdGraphInfo().getHeight(), BufferedImage.TYPE_INT_RGB);
-            graph.render(bi.getGraphics());
-            return bi;
-        } catch (IOException e) {
-            throw new UncheckedIOException("Error generating RrdGraph", e);
-        }
+        return chartItems;
     }
 
     @Override
     public ImageType getChartType() {
         return ImageType.png;
     }
+
+    private static class CachedChart {
+        private final byte[] image;
+        private final String etag;
+        private final long lastModified;
+        private final long expires;
+
+        private CachedChart(byte[] image, String etag, long lastModified, long expires) {
+            this.image = image;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.expires = expires;
+        }
+    }
 }
@@ -17,11 +17,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
-import java.util.Base64;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -32,7 +28,6 @@ import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
-import org.openhab.core.cache.ExpiringCacheMap;
 import org.openhab.core.transform.TransformationException;
 import org.osgi.service.component.annotations.Component;
 import org.slf4j.Logger;
@@ -41,19 +36,39 @@ import org.slf4j.LoggerFactory;
 /**
  * Simple cache for compiled JavaScript files.
  *
+ * Scripts are compiled once per file name or inline script, lookups of cached scripts do not lock. Only the compiled
+ * script is cached, every evaluation gets new bindings, so global variables of a script do not leak into the next
+ * evaluation.
+ *
  * @author Thomas Kordelle - Initial contribution
  * @author Thomas Kordelle - pre compiled scripts
  */
 @NonNullByDefault
 @Component(service = JavaScriptEngineManager.class)
 public class JavaScriptEngineManager {
+    static final Duration INLINE_SCRIPT_EXPIRY = Duration.ofDays(1);
 
     private final Logger logger = LoggerFactory.getLogger(JavaScriptEngineManager.class);
     private final ScriptEngineManager manager = new ScriptEngineManager();
-    /* keep memory foot print low. max 2 concurrent threads are estimated */
-    private final Map<String, CompiledScript> compiledScriptMap = new ConcurrentHashMap<>(4, 0.5f, 2);
-    private final ExpiringCacheMap<String, CompiledScript> cacheForInlineScripts = new ExpiringCacheMap<>(
-            Duration.ofDays(1));
+    private final Map<String, CachedScript> compiledScriptMap = new ConcurrentHashMap<>();
+    private final Map<String, CachedScript> cacheForInlineScripts = new ConcurrentHashMap<>();
+
+    /**
+     * A compiled script and the time it was last used
+     */
+    protected static class CachedScript {
+        private final CompiledScript compiledScript;
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        CachedScript(CompiledScript compiledScript) {
+            this.compiledScript = compiledScript;
+        }
+
+        public CompiledScript getCompiledScript() {
+            lastUsed = System.currentTimeMillis();
+            return compiledScript;
+        }
+    }
 
     /**
      * Get a pre compiled script {@link CompiledScript} from cache. If it is not in the cache, then load it from
@@ -63,26 +78,28 @@ public class JavaScriptEngineManager {
      * @return a pre compiled script {@link CompiledScript}
      * @throws TransformationException if compile of JavaScript failed
      */
-    protected CompiledScript getCompiledScriptByFilename(final String filename) throws TransformationException {
-        synchronized (compiledScriptMap) {
-            CompiledScript compiledScript = compiledScriptMap.get(filename);
-            if (compiledScript != null) {
-                logger.debug("Loading JavaScript {} from cache.", filename);
-                return compiledScript;
-            } else {
-                final String path = TransformationScriptWatcher.TRANSFORM_FOLDER + File.separator + filename;
+    protected CachedScript getCompiledScriptByFilename(final String filename) throws TransformationException {
+        CachedScript cachedScript = compiledScriptMap.get(filename);
+        if (cachedScript != null) {
+            logger.debug("Loading JavaScript {} from cache.", filename);
+            return cachedScript;
+        }
+        try {
+            // compiles the script only once, even if several threads request it at the same time
+            return compiledScriptMap.computeIfAbsent(filename, key -> {
+                final String path = TransformationScriptWatcher.TRANSFORM_FOLDER + File.separator + key;
                 logger.debug("Loading script {} from storage ", path);
                 try (final Reader reader = new InputStreamReader(new FileInputStream(path))) {
-                    final ScriptEngine engine = manager.getEngineByName("javascript");
-                    final CompiledScript cScript = ((Compilable) engine).compile(reader);
+                    final CompiledScript cScript = ((Compilable) getEngine()).compile(reader);
                     logger.debug("Putting compiled JavaScript {} to cache.", cScript);
-                    compiledScriptMap.put(filename, cScript);
-                    return cScript;
+                    return new CachedScript(cScript);
                 } catch (IOException | ScriptException e) {
-                    throw new TransformationException("An error occurred while loading JavaScript. " + e.getMessage(),
-                            e);
+                    throw new CompileException(e);
                 }
-            }
+            });
+        } catch (CompileException e) {
+            throw new TransformationException("An error occurred while loading JavaScript. " + e.getMessage(),
+                    e.getCause());
         }
     }
 
@@ -94,24 +111,26 @@ public class JavaScriptEngineManager {
      * @return a pre compiled script {@link CompiledScript}
      * @throws TransformationException if compile of JavaScript failed
      */
-    protected CompiledScript getCompiledScriptByInlineScript(final String script) throws TransformationException {
-        synchronized (cacheForInlineScripts) {
-            try {
-                final String hash = calcHash(script);
-                final CompiledScript compiledScript = cacheForInlineScripts.get(hash);
-                if (compiledScript != null) {
-                    logger.debug("Loading JavaScript from cache.");
-                    return compiledScript;
-                } else {
-                    logger.debug("Compiling script {}", script);
-                    final ScriptEngine engine = manager.getEngineByName("javascript");
-                    final CompiledScript cScript = ((Compilable) engine).compile(script);
-                    cacheForInlineScripts.put(hash, () -> cScript);
-                    return cScript;
+    protected CachedScript getCompiledScriptByInlineScript(final String script) throws TransformationException {
+        // the script itself is the key, its hash code is cached by the string
+        CachedScript cachedScript = cacheForInlineScripts.get(script);
+        if (cachedScript != null) {
+            logger.debug("Loading JavaScript from cache.");
+            return cachedScript;
+        }
+        removeExpiredInlineScripts();
+        try {
+            return cacheForInlineScripts.computeIfAbsent(script, key -> {
+                logger.debug("Compiling script {}", key);
+                try {
+                    return new CachedScript(((Compilable) getEngine()).compile(key));
+                } catch (ScriptException e) {
+                    throw new CompileException(e);
                 }
-            } catch (ScriptException | NoSuchAlgorithmException e) {
-                throw new TransformationException("An error occurred while compiling JavaScript. " + e.getMessage(), e);
-            }
+            });
+        } catch (CompileException e) {
+            throw new TransformationException("An error occurred while compiling JavaScript. " + e.getMessage(),
+                    e.getCause());
         }
     }
 
@@ -125,9 +144,23 @@ public class JavaScriptEngineManager {
         compiledScriptMap.remove(fileName);
     }
 
-    private String calcHash(final String script) throws NoSuchAlgorithmException {
-        MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        byte[] hash = digest.digest(script.getBytes(StandardCharsets.UTF_8));
-        return Base64.getEncoder().encodeToString(hash);
+    private ScriptEngine getEngine() {
+        return manager.getEngineByName("javascript");
+    }
+
+    private void removeExpiredInlineScripts() {
+        long expired = System.currentTimeMillis() - INLINE_SCRIPT_EXPIRY.toMillis();
+        cacheForInlineScripts.values().removeIf(cachedScript -> cachedScript.lastUsed < expired);
+    }
+
+    /**
+     * Carries a compile error out of the compute function of the cache
+     */
+    private static class CompileException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        CompileException(Exception cause) {
+            super(cause.getMessage(), cause);
+        }
     }
 }
@@ -91,7 +91,7 @@ public class JavaScriptTransformationService implements TransformationService, C
         Map<String, String> vars = Collections.emptyMap();
         String result = "";
 
-        CompiledScript cScript;
+        JavaScriptEngineManager.CachedScript cScript;
 
         if (filenameOrInlineScript.startsWith("|")) {
             // inline java script
@@ -120,10 +120,11 @@ public class JavaScriptTransformationService implements TransformationService, C
         }
 
         try {
-            final Bindings bindings = cScript.getEngine().createBindings();
+            final CompiledScript compiledScript = cScript.getCompiledScript();
+            final Bindings bindings = compiledScript.getEngine().createBindings();
             bindings.put(SCRIPT_DATA_WORD, source);
             vars.forEach((k, v) -> bindings.put(k, v));
-            result = String.valueOf(cScript.eval(bindings));
+            result = String.valueOf(compiledScript.eval(bindings));
             return result;
         } catch (ScriptException e) {
             throw new TransformationException("An error occurred while executing script. " + e.getMessage(), e);
@@ -132,6 +132,24 @@ public class JavaScriptTransformationServiceTest {
         assertEquals("111", transformedResponse);
     }
 
+    @Test
+    public void testAdditionalVariablesAreNotReused() throws Exception {
+        final String DATA = "100";
+
+        assertEquals("111", processor.transform("sum.js?a=10&b=1", DATA));
+        assertEquals("111", processor.transform("sum.js?a=10&b=1", DATA));
+        assertThrows(TransformationException.class, () -> processor.transform("sum.js?a=10", DATA));
+    }
+
+    @Test
+    public void testGlobalVariablesAreNotReused() throws Exception {
+        final String SCRIPT = "| var result = typeof counter; counter = input; result";
+
+        assertEquals("undefined", processor.transform(SCRIPT, "1"));
+        // the global variable declared by the previous call must not be visible
+        assertEquals("undefined", processor.transform(SCRIPT, "2"));
+    }
+
     @Test
     public void testIllegalVariableName() throws Exception {
         final String DATA = "100";
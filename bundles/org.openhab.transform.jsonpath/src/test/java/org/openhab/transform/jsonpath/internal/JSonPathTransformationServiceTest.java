@@ -51,6 +51,15 @@ public class JSonPathTransformationServiceTest {
         assertEquals("bob", transformedResponse);
     }
 
+    @Test
+    public void testCompiledPathIsReused() throws TransformationException {
+        assertEquals("bob", processor.transform("$[0].name", jsonArray));
+        assertEquals("alice", processor.transform("$[1].name", jsonArray));
+        assertEquals("bob", processor.transform("$[0].name", jsonArray));
+        assertEquals(1, processor.getCacheHits());
+        assertEquals(2, processor.getCacheMisses());
+    }
+
     @Test
     public void testValidPath2() throws TransformationException {
         String transformedResponse = processor.transform("$[1].id", jsonArray);
@@ -12,6 +12,9 @@
  */
 package org.openhab.transform.regex.internal;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -40,6 +43,14 @@ public class RegExTransformationService implements TransformationService {
 
     private static final Pattern SUBSTR_PATTERN = Pattern.compile("^s/(.*?[^\\\\])/(.*?[^\\\\])/(.*)$");
 
+    static final int CACHE_SIZE = 256;
+
+    // compiled patterns by regular expression, in access order to drop the least recently used one
+    private final Map<String, Pattern> substitutionPatterns = createCache();
+    private final Map<String, Pattern> matchPatterns = createCache();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
     @Override
     public @Nullable String transform(String regExpression, String source) throws TransformationException {
         if (regExpression == null || source == null) {
@@ -56,17 +67,18 @@ public class RegExTransformationService implements TransformationService {
             String regex = substMatcher.group(1);
             String substitution = substMatcher.group(2);
             String options = substMatcher.group(3);
+            Matcher matcher = compile(substitutionPatterns, regex, 0).matcher(source.trim());
             if (options.equals("g")) {
-                result = source.trim().replaceAll(regex, substitution);
+                result = matcher.replaceAll(substitution);
             } else {
-                result = source.trim().replaceFirst(regex, substitution);
+                result = matcher.replaceFirst(substitution);
             }
             if (result != null) {
                 return result;
             }
         }
 
-        Matcher matcher = Pattern.compile("^" + regExpression + "$", Pattern.DOTALL).matcher(source.trim());
+        Matcher matcher = compile(matchPatterns, "^" + regExpression + "$", Pattern.DOTALL).matcher(source.trim());
         if (!matcher.matches()) {
             logger.debug(
                     "the given regex '^{}$' doesn't match the given content '{}' -> couldn't compute transformation",
@@ -94,4 +106,46 @@ public class RegExTransformationService implements TransformationService {
 
         return result;
     }
+
+    /**
+     * Returns the number of transformations which used an already compiled pattern
+     */
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * Returns the number of transformations which had to compile their pattern
+     */
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    private Pattern compile(Map<String, Pattern> cache, String regex, int flags) {
+        synchronized (cache) {
+            Pattern pattern = cache.get(regex);
+            if (pattern != null) {
+                cacheHits.incrementAndGet();
+                return pattern;
+            }
+        }
+        // compiled outside of the lock, an invalid expression throws a PatternSyntaxException
+        Pattern pattern = Pattern.compile(regex, flags);
+        cacheMisses.incrementAndGet();
+        synchronized (cache) {
+            cache.put(regex, pattern);
+        }
+        return pattern;
+    }
+
+    private static Map<String, Pattern> createCache() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.@Nullable Entry<String, Pattern> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+    }
 }
@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.scale.internal;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * A scale file compiled for lookups.
+ *
+ * The limits of all ranges split the number line into segments: the limits themselves and the open intervals between
+ * them. The range that matches a value is the same for all values of a segment, so it is resolved once per segment
+ * when the table is built, honouring the order of the ranges in the file. A lookup is then a binary search over the
+ * sorted limits.
+ *
+ * @author Marty Phelan - Initial contribution
+ */
+@NonNullByDefault
+public class ScaleTable {
+    static final String FORMAT_VALUE = "%value%";
+    static final String FORMAT_LABEL = "%label%";
+
+    // the sorted distinct limits of all ranges
+    private final BigDecimal[] limits;
+    // the label of each segment: open interval before limits[i] at 2 * i, limits[i] at 2 * i + 1
+    private final @Nullable String[] labels;
+    private final @Nullable String nonNumeric;
+    // the format split at its placeholders: literal texts, FORMAT_VALUE and FORMAT_LABEL
+    private final String[] format;
+
+    /**
+     * Compiles a scale
+     *
+     * @param ranges the ranges with their labels, in the order of the file
+     * @param nonNumeric the label for non numeric values, or null
+     * @param format the format of the result, with the placeholders {@value #FORMAT_VALUE} and
+     *            {@value #FORMAT_LABEL}
+     */
+    public ScaleTable(LinkedHashMap<Range, String> ranges, @Nullable String nonNumeric, String format) {
+        TreeSet<BigDecimal> limitSet = new TreeSet<>();
+        for (Range range : ranges.keySet()) {
+            if (range.min != null) {
+                limitSet.add(range.min);
+            }
+            if (range.max != null) {
+                limitSet.add(range.max);
+            }
+        }
+        this.limits = limitSet.toArray(new BigDecimal[0]);
+
+        this.labels = new String[2 * limits.length + 1];
+        for (int segment = 0; segment < labels.length; segment++) {
+            BigDecimal value = representative(segment);
+            for (Map.Entry<Range, String> entry : ranges.entrySet()) {
+                if (entry.getKey().contains(value)) {
+                    labels[segment] = entry.getValue();
+                    break;
+                }
+            }
+        }
+
+        this.nonNumeric = nonNumeric;
+        this.format = tokenize(format);
+    }
+
+    /**
+     * Returns the label of the first range containing the value, or null if no range contains it
+     */
+    public @Nullable String getLabel(BigDecimal value) {
+        int index = Arrays.binarySearch(limits, value, BigDecimal::compareTo);
+        return labels[index >= 0 ? 2 * index + 1 : -2 * (index + 1)];
+    }
+
+    /**
+     * Returns the label for non numeric values, or null if the scale has none
+     */
+    public @Nullable String getNonNumeric() {
+        return nonNumeric;
+    }
+
+    /**
+     * Formats the result of a transformation
+     */
+    public String format(String value, String label) {
+        StringBuilder result = new StringBuilder();
+        for (String token : format) {
+            // placeholders are the constant instances, literal texts never contain them
+            if (token == FORMAT_VALUE) {
+                result.append(value);
+            } else if (token == FORMAT_LABEL) {
+                result.append(label);
+            } else {
+                result.append(token);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns a value within the given segment
+     */
+    private BigDecimal representative(int segment) {
+        if (limits.length == 0) {
+            return BigDecimal.ZERO;
+        }
+        int index = segment / 2;
+        if (segment % 2 == 1) {
+            return limits[index];
+        } else if (index == 0) {
+            return limits[0].subtract(BigDecimal.ONE);
+        } else if (index == limits.length) {
+            return limits[index - 1].add(BigDecimal.ONE);
+        } else {
+            return limits[index - 1].add(limits[index]).divide(BigDecimal.valueOf(2));
+        }
+    }
+
+    private static String[] tokenize(String format) {
+        List<String> tokens = new ArrayList<>();
+        int start = 0;
+        while (start < format.length()) {
+            int valueIndex = format.indexOf(FORMAT_VALUE, start);
+            int labelIndex = format.indexOf(FORMAT_LABEL, start);
+            int index = valueIndex < 0 ? labelIndex : labelIndex < 0 ? valueIndex : Math.min(valueIndex, labelIndex);
+            if (index < 0) {
+                tokens.add(format.substring(start));
+                break;
+            }
+            if (index > start) {
+                tokens.add(format.substring(start, index));
+            }
+            String placeholder = index == valueIndex ? FORMAT_VALUE : FORMAT_LABEL;
+            tokens.add(placeholder);
+            start = index + placeholder.length();
+        }
+        return tokens.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.scale.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Marty Phelan - Initial contribution
+ */
+public class ScaleTableTest {
+
+    @Test
+    public void testLookupHonoursLimitsAndOrder() {
+        LinkedHashMap<Range, String> ranges = new LinkedHashMap<>();
+        ranges.put(Range.lessThan(new BigDecimal(15)), "first");
+        ranges.put(Range.closedOpen(new BigDecimal(10), new BigDecimal(17)), "second");
+        ranges.put(Range.openClosed(new BigDecimal(20), new BigDecimal(30)), "third");
+        ScaleTable table = new ScaleTable(ranges, null, ScaleTable.FORMAT_LABEL);
+
+        assertEquals("first", table.getLabel(new BigDecimal(-1000)));
+        assertEquals("first", table.getLabel(new BigDecimal(12)));
+        assertEquals("second", table.getLabel(new BigDecimal(15)));
+        assertEquals("second", table.getLabel(new BigDecimal("16.99")));
+        assertNull(table.getLabel(new BigDecimal(17)));
+        assertNull(table.getLabel(new BigDecimal(20)));
+        assertEquals("third", table.getLabel(new BigDecimal("20.0001")));
+        assertEquals("third", table.getLabel(new BigDecimal("30.0")));
+        assertNull(table.getLabel(new BigDecimal(31)));
+    }
+
+    @Test
+    public void testFormat() {
+        ScaleTable table = new ScaleTable(new LinkedHashMap<>(), null, "%label% (%value%) %value%!");
+        assertEquals("Good $1 (992) 992!", table.format("992", "Good $1"));
+    }
+}
@@ -15,9 +15,13 @@ package org.openhab.transform.xslt.internal;
 import java.io.File;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
@@ -27,7 +31,9 @@ import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.OpenHAB;
 import org.openhab.core.transform.TransformationException;
 import org.openhab.core.transform.TransformationService;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,14 +41,41 @@ import org.slf4j.LoggerFactory;
  * <p>
  * The implementation of {@link TransformationService} which transforms the input by XSLT.
  *
+ * <p>
+ * Stylesheets are compiled once and cached until the {@link XsltTransformationWatcher} reports a change of the file.
+ *
  * @author Thomas.Eichstaedt-Engelen
  */
 @NonNullByDefault
 @Component(property = { "openhab.transform=XSLT" })
 public class XsltTransformationService implements TransformationService {
 
+    static final String TRANSFORM_FOLDER = OpenHAB.getConfigFolder() + File.separator
+            + TransformationService.TRANSFORM_FOLDER_NAME;
+
     private final Logger logger = LoggerFactory.getLogger(XsltTransformationService.class);
 
+    private final TransformerFactory transformerFactory = TransformerFactory.newInstance();
+    private final Map<Path, Templates> templatesCache = new ConcurrentHashMap<>();
+    private @Nullable XsltTransformationWatcher watcher;
+
+    @Activate
+    protected void activate() {
+        XsltTransformationWatcher watcher = new XsltTransformationWatcher(TRANSFORM_FOLDER, this);
+        watcher.activate();
+        this.watcher = watcher;
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        XsltTransformationWatcher watcher = this.watcher;
+        if (watcher != null) {
+            watcher.deactivate();
+            this.watcher = null;
+        }
+        clearCache();
+    }
+
     /**
      * Transforms the input <code>source</code> by XSLT.
      *
@@ -60,12 +93,10 @@ public class XsltTransformationService implements TransformationService {
             throw new TransformationException("the given parameters 'filename' and 'source' must not be null");
         }
 
-        Source xsl = null;
+        Path path;
 
         try {
-            String path = OpenHAB.getConfigFolder() + File.separator + TransformationService.TRANSFORM_FOLDER_NAME
-                    + File.separator + filename;
-            xsl = new StreamSource(new File(path));
+            path = toCacheKey(Path.of(TRANSFORM_FOLDER, filename));
         } catch (Exception e) {
             String message = "opening file '" + filename + "' throws exception";
 
@@ -73,7 +104,7 @@ public class XsltTransformationService implements TransformationService {
             throw new TransformationException(message, e);
         }
 
-        logger.debug("about to transform '{}' by the function '{}'", source, xsl);
+        logger.debug("about to transform '{}' by the function '{}'", source, path);
 
         StringReader xml = new StringReader(source);
         StringWriter out = new StringWriter();
@@ -81,7 +112,8 @@ public class XsltTransformationService implements TransformationService {
         Transformer transformer;
 
         try {
-            transformer = TransformerFactory.newInstance().newTransformer(xsl);
+            // creating a transformer from compiled templates is cheap, and transformers are not thread safe
+            transformer = getTemplates(path).newTransformer();
             transformer.transform(new StreamSource(xml), new StreamResult(out));
         } catch (Exception e) {
             logger.error("transformation throws exception", e);
@@ -92,4 +124,39 @@ public class XsltTransformationService implements TransformationService {
 
         return out.toString();
     }
+
+    /**
+     * Removes the compiled stylesheet of the given file from the cache
+     *
+     * @param path the path of the stylesheet file
+     */
+    protected void removeFromCache(Path path) {
+        if (templatesCache.remove(toCacheKey(path)) != null) {
+            logger.debug("Removed XSLT {} from cache.", path);
+        }
+    }
+
+    protected void clearCache() {
+        templatesCache.clear();
+    }
+
+    private Templates getTemplates(Path path) throws TransformerConfigurationException {
+        Templates templates = templatesCache.get(path);
+        if (templates == null) {
+            // the factory is not guaranteed to be thread safe
+            synchronized (transformerFactory) {
+                templates = templatesCache.get(path);
+                if (templates == null) {
+                    logger.debug("Compiling XSLT {}.", path);
+                    templates = transformerFactory.newTemplates(new StreamSource(path.toFile()));
+                    templatesCache.put(path, templates);
+                }
+            }
+        }
+        return templates;
+    }
+
+    private static Path toCacheKey(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
 }